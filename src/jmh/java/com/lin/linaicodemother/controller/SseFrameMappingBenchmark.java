@@ -0,0 +1,109 @@
+package com.lin.linaicodemother.controller;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+import com.lin.linaicodemother.ai.simulate.RecordedResponses;
+import com.lin.linaicodemother.ai.simulate.SimulatedModelOptions;
+import com.lin.linaicodemother.ai.simulate.SimulatedStreamingChatModel;
+import com.lin.linaicodemother.config.CodeGenProperties;
+import com.lin.linaicodemother.core.GenerationChunk;
+import com.lin.linaicodemother.core.sse.SseChunkCoalescer;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/18 21:20
+ * @Descriptions SSE 帧转换基准测试
+ * 模拟大模型按录制的响应输出，经过 AppController 中的合并、编码、组装 SSE 事件，统计一次完整生成的耗时。
+ * tokensPerSecond 为 0 时不限速，只衡量我们自己的开销；大于 0 时可观察合并窗口对帧数和延迟的影响。
+ * 运行：mvn -P benchmark test-compile exec:java -Dexec.args="SseFrameMappingBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SseFrameMappingBenchmark {
+
+    private static final String SYSTEM_PROMPT = "prompt/codegen-multi-file-system-prompt.txt";
+
+    @Param({"0", "2000"})
+    private double tokensPerSecond;
+
+    /**
+     * 合并窗口（毫秒），0 表示不合并
+     */
+    @Param({"0", "30"})
+    private long coalesceMillis;
+
+    private StreamingChatModel model;
+
+    private ChatRequest chatRequest;
+
+    private AppController appController;
+
+    @Setup
+    public void setUp() {
+        SimulatedModelOptions options = new SimulatedModelOptions();
+        options.setTimeToFirstToken(Duration.ZERO);
+        options.setTokensPerSecond(tokensPerSecond);
+        model = new SimulatedStreamingChatModel(new RecordedResponses(), options);
+        chatRequest = ChatRequest.builder()
+                .messages(SystemMessage.from(ResourceUtil.readUtf8Str(SYSTEM_PROMPT)), UserMessage.from("做一个摄影作品集网站"))
+                .build();
+        CodeGenProperties codeGenProperties = new CodeGenProperties();
+        codeGenProperties.getSseCoalesce().setMaxDelay(Duration.ofMillis(coalesceMillis));
+        appController = new AppController(null, null, new SseChunkCoalescer(codeGenProperties));
+    }
+
+    /**
+     * @return 推送的 SSE 事件数
+     */
+    @Benchmark
+    public Long generate() {
+        Flux<GenerationChunk> chunks = stream(model, chatRequest).index(GenerationChunk::new);
+        return appController.toServerSentEvents(chunks).count().block();
+    }
+
+    /**
+     * 将流式模型的回调转换为 Flux
+     */
+    private static Flux<String> stream(StreamingChatModel model, ChatRequest chatRequest) {
+        return Flux.create(sink -> model.chat(chatRequest, new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(String partialResponse) {
+                sink.next(partialResponse);
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                sink.complete();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                sink.error(error);
+            }
+        }));
+    }
+}
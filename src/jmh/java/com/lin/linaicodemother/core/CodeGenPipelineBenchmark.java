@@ -0,0 +1,78 @@
+package com.lin.linaicodemother.core;
+
+import com.lin.linaicodemother.ai.simulate.RecordedResponses;
+import com.lin.linaicodemother.core.parser.CodeParserExecutor;
+import com.lin.linaicodemother.core.saver.CodeFileSaverExecutor;
+import com.lin.linaicodemother.model.enums.CodeGenTypeEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/18 21:05
+ * @Descriptions 生成结束后的解析、保存基准测试（使用录制的响应）
+ * 运行：mvn -P benchmark test-compile exec:java -Dexec.args="CodeGenPipelineBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodeGenPipelineBenchmark {
+
+    /**
+     * 保存文件使用的应用 id（写入 tmp/code_output/{type}_{appId}）
+     */
+    private static final long BENCHMARK_APP_ID = 9_000_000_001L;
+
+    @Param({"html", "multi_file"})
+    private String codeGenType;
+
+    private CodeGenTypeEnum codeGenTypeEnum;
+
+    private String response;
+
+    private Object codeResult;
+
+    @Setup
+    public void setUp() {
+        codeGenTypeEnum = CodeGenTypeEnum.getEnumByValue(codeGenType);
+        String systemPrompt = codeGenTypeEnum == CodeGenTypeEnum.HTML
+                ? "prompt/codegen-html-system-prompt.txt"
+                : "prompt/codegen-multi-file-system-prompt.txt";
+        response = new RecordedResponses().responseFor(systemPrompt);
+        codeResult = CodeParserExecutor.executeParser(response, codeGenTypeEnum);
+    }
+
+    @Benchmark
+    public Object executeParser() {
+        return CodeParserExecutor.executeParser(response, codeGenTypeEnum);
+    }
+
+    @Benchmark
+    public File executeSaver() {
+        return CodeFileSaverExecutor.executeSaver(codeResult, codeGenTypeEnum, BENCHMARK_APP_ID);
+    }
+
+    /**
+     * 非流式保存的完整过程：解析 + 保存
+     */
+    @Benchmark
+    public File parseAndSave() {
+        Object result = CodeParserExecutor.executeParser(response, codeGenTypeEnum);
+        return CodeFileSaverExecutor.executeSaver(result, codeGenTypeEnum, BENCHMARK_APP_ID);
+    }
+}
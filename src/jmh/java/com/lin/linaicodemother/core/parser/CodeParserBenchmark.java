@@ -0,0 +1,134 @@
+package com.lin.linaicodemother.core.parser;
+
+import com.lin.linaicodemother.ai.model.HtmlCodeResult;
+import com.lin.linaicodemother.ai.model.MultiFileCodeResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/16 21:30
+ * @Descriptions 代码解析器基准测试：原正则解析 vs 单次扫描
+ * 运行：mvn -P benchmark test-compile exec:java -Dexec.args="CodeParserBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodeParserBenchmark {
+
+    private static final Pattern HTML_CODE_PATTERN = Pattern.compile("```html\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CSS_CODE_PATTERN = Pattern.compile("```css\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
+    private static final Pattern JS_CODE_PATTERN = Pattern.compile("```(?:js|javascript)\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 响应大小：10 KB、100 KB、1 MB
+     */
+    @Param({"10240", "102400", "1048576"})
+    private int size;
+
+    private String content;
+
+    private final HtmlCodeParser htmlCodeParser = new HtmlCodeParser();
+
+    private final MultiFileCodeParser multiFileCodeParser = new MultiFileCodeParser();
+
+    @Setup
+    public void setUp() {
+        content = buildContent(size);
+    }
+
+    @Benchmark
+    public HtmlCodeResult regexHtml() {
+        HtmlCodeResult result = new HtmlCodeResult();
+        String htmlCode = extract(content, HTML_CODE_PATTERN);
+        result.setHtmlCode(htmlCode != null && !htmlCode.trim().isEmpty() ? htmlCode.trim() : content.trim());
+        return result;
+    }
+
+    @Benchmark
+    public HtmlCodeResult scannerHtml() {
+        return htmlCodeParser.parseCode(content);
+    }
+
+    @Benchmark
+    public MultiFileCodeResult regexMultiFile() {
+        MultiFileCodeResult result = new MultiFileCodeResult();
+        String htmlCode = extract(content, HTML_CODE_PATTERN);
+        String cssCode = extract(content, CSS_CODE_PATTERN);
+        String jsCode = extract(content, JS_CODE_PATTERN);
+        if (htmlCode != null && !htmlCode.trim().isEmpty()) {
+            result.setHtmlCode(htmlCode.trim());
+        }
+        if (cssCode != null && !cssCode.trim().isEmpty()) {
+            result.setCssCode(cssCode.trim());
+        }
+        if (jsCode != null && !jsCode.trim().isEmpty()) {
+            result.setJsCode(jsCode.trim());
+        }
+        return result;
+    }
+
+    @Benchmark
+    public MultiFileCodeResult scannerMultiFile() {
+        return multiFileCodeParser.parseCode(content);
+    }
+
+    /**
+     * 只扫描，不复制内容
+     */
+    @Benchmark
+    public void scanOnly(Blackhole blackhole) {
+        for (CodeFenceScanner.CodeFence fence : CodeFenceScanner.scan(content)) {
+            blackhole.consume(fence.trimmedContent());
+        }
+    }
+
+    private static String extract(String content, Pattern pattern) {
+        Matcher matcher = pattern.matcher(content);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * 构造接近真实输出的响应：说明文字 + html/css/js 三个代码块，按比例填充到指定大小
+     */
+    private static String buildContent(int size) {
+        int blockSize = Math.max(size / 4, 64);
+        StringBuilder builder = new StringBuilder(size + 256);
+        builder.append("好的，下面是为你生成的页面，包含 HTML、CSS 和 JavaScript 三个文件：\n\n");
+        builder.append("```html\n<!DOCTYPE html>\n<html>\n<body>\n");
+        fill(builder, blockSize, "    <p class=\"item\">示例段落 `code`</p>\n");
+        builder.append("</body>\n</html>\n```\n\n");
+        builder.append("```css\n");
+        fill(builder, blockSize, ".item { color: #333; margin: 0 auto; }\n");
+        builder.append("```\n\n");
+        builder.append("```javascript\n");
+        fill(builder, blockSize, "document.querySelectorAll('.item').forEach(el => el.classList.add(`on`));\n");
+        builder.append("```\n\n");
+        fill(builder, size - builder.length(), "以上代码实现了页面的基本结构、样式和交互。\n");
+        return builder.toString();
+    }
+
+    private static void fill(StringBuilder builder, int length, String line) {
+        int target = builder.length() + length;
+        while (builder.length() < target) {
+            builder.append(line);
+        }
+    }
+}
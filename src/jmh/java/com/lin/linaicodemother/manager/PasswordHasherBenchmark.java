@@ -0,0 +1,50 @@
+package com.lin.linaicodemother.manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/26 21:00
+ * @Descriptions 密码哈希基准测试：不同迭代次数下单次 PBKDF2 的耗时，对比旧版 MD5
+ * 启动日志中的“密码哈希迭代次数”即本机自动测定的结果，可以用 -p 指定验证：
+ * mvn -P benchmark test-compile exec:java -Dexec.args="PasswordHasherBenchmark -p iterations=310000"
+ * 用 -t 指定线程数（如 CPU 核数）可以观察并发登录时的吞吐量。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(1)
+public class PasswordHasherBenchmark {
+
+    private static final String PASSWORD = "12345678";
+
+    private static final byte[] SALT = "0123456789abcdef".getBytes();
+
+    @Param({"100000", "310000", "600000"})
+    private int iterations;
+
+    @Benchmark
+    public byte[] pbkdf2() {
+        return PasswordHasher.pbkdf2(PASSWORD, SALT, iterations);
+    }
+
+    @Benchmark
+    public String legacyMd5() {
+        return PasswordHasher.legacyHash(PASSWORD);
+    }
+}
@@ -0,0 +1,86 @@
+package com.lin.linaicodemother.service.impl;
+
+import com.github.houbb.sensitive.word.core.SensitiveWordHelper;
+import com.lin.linaicodemother.ai.simulate.RecordedResponses;
+import com.lin.linaicodemother.config.SensitiveWordProperties;
+import com.lin.linaicodemother.core.sensitive.SensitiveWordScreener;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/18 21:35
+ * @Descriptions 提示词敏感词检查基准测试
+ * 对比 sensitive-word 原有的检查、Aho-Corasick 自动机扫描、带结果缓存的 checkSensitive
+ * 运行：mvn -P benchmark test-compile exec:java -Dexec.args="SensitiveCheckBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SensitiveCheckBenchmark {
+
+    /**
+     * 提示词长度（字符数）
+     */
+    @Param({"64", "1024", "8192"})
+    private int length;
+
+    private String prompt;
+
+    private SensitiveWordScreener sensitiveWordScreener;
+
+    private AppServiceImpl appService;
+
+    @Setup
+    public void setUp() {
+        // 用录制的响应文本构造提示词，贴近真实的中英文混合内容
+        String text = new RecordedResponses().responseFor("prompt/codegen-html-system-prompt.txt");
+        StringBuilder builder = new StringBuilder(length);
+        while (builder.length() < length) {
+            builder.append(text, 0, Math.min(text.length(), length - builder.length()));
+        }
+        prompt = builder.toString();
+        SensitiveWordProperties properties = new SensitiveWordProperties();
+        properties.setReloadInterval(Duration.ZERO);
+        sensitiveWordScreener = new SensitiveWordScreener(properties, new SimpleMeterRegistry());
+        sensitiveWordScreener.init();
+        // checkSensitive 只依赖敏感词检查组件
+        appService = new AppServiceImpl(null, null, null, null, null, null, sensitiveWordScreener, null);
+        SensitiveWordHelper.findAll("预热敏感词库");
+    }
+
+    @Benchmark
+    public List<String> sensitiveWordHelper() {
+        return SensitiveWordHelper.findAll(prompt);
+    }
+
+    @Benchmark
+    public List<String> automatonScan() {
+        return sensitiveWordScreener.findAll(prompt);
+    }
+
+    /**
+     * 同一提示词重复检查，命中结果缓存
+     */
+    @Benchmark
+    public List<String> checkSensitive() {
+        return appService.checkSensitive(prompt);
+    }
+}
@@ -3,48 +3,76 @@ package com.lin.linaicodemother.ai;
 
 import com.lin.linaicodemother.ai.model.HtmlCodeResult;
 import com.lin.linaicodemother.ai.model.MultiFileCodeResult;
+import dev.langchain4j.service.MemoryId;
 import dev.langchain4j.service.SystemMessage;
+import dev.langchain4j.service.UserMessage;
+import dev.langchain4j.service.memory.ChatMemoryAccess;
 import reactor.core.publisher.Flux;
 
 /**
  * @Author Lin
  * @Date 2026/1/7 21:12
  * @Descriptions 定义AIService 接口
+ * 所有应用共用一个代理实例，通过 @MemoryId（appId）路由到各自的对话记忆
  */
-public interface AiCodeGeneratorService {
+public interface AiCodeGeneratorService extends ChatMemoryAccess {
     /**
      * 生成 HTML 代码
      *
+     * @param appId       应用 id（对话记忆 id）
      * @param userMessage 用户提示词
      * @return AI 的输出结果
      */
     @SystemMessage(fromResource = "prompt/codegen-html-system-prompt.txt")
-    HtmlCodeResult generateHtmlCode(String userMessage);
+    HtmlCodeResult generateHtmlCode(@MemoryId long appId, @UserMessage String userMessage);
 
     /**
      * 生成多文件代码
      *
+     * @param appId       应用 id（对话记忆 id）
      * @param userMessage 用户提示词
      * @return AI 的输出结果
      */
     @SystemMessage(fromResource = "prompt/codegen-multi-file-system-prompt.txt")
-    MultiFileCodeResult generateMultiFileCode(String userMessage);
+    MultiFileCodeResult generateMultiFileCode(@MemoryId long appId, @UserMessage String userMessage);
 
     /**
      * 生成 HTML 代码(流式输出)
      *
+     * @param appId       应用 id（对话记忆 id）
      * @param userMessage 用户提示词
      * @return AI 的输出结果
      */
     @SystemMessage(fromResource = "prompt/codegen-html-system-prompt.txt")
-    Flux<String> generateHtmlCodeStream(String userMessage);
+    Flux<String> generateHtmlCodeStream(@MemoryId long appId, @UserMessage String userMessage);
 
     /**
      * 生成多文件代码(流式输出)
      *
+     * @param appId       应用 id（对话记忆 id）
      * @param userMessage 用户提示词
      * @return AI 的输出结果
      */
     @SystemMessage(fromResource = "prompt/codegen-multi-file-system-prompt.txt")
-    Flux<String> generateMultiFileCodeStream(String userMessage);
+    Flux<String> generateMultiFileCodeStream(@MemoryId long appId, @UserMessage String userMessage);
+
+    /**
+     * 生成 HTML 代码(流式输出 JSON)
+     *
+     * @param appId       应用 id（对话记忆 id）
+     * @param userMessage 用户提示词
+     * @return AI 的输出结果（HtmlCodeResult 结构的 JSON 文本）
+     */
+    @SystemMessage(fromResource = "prompt/codegen-html-json-stream-system-prompt.txt")
+    Flux<String> generateHtmlCodeJsonStream(@MemoryId long appId, @UserMessage String userMessage);
+
+    /**
+     * 生成多文件代码(流式输出 JSON)
+     *
+     * @param appId       应用 id（对话记忆 id）
+     * @param userMessage 用户提示词
+     * @return AI 的输出结果（MultiFileCodeResult 结构的 JSON 文本）
+     */
+    @SystemMessage(fromResource = "prompt/codegen-multi-file-json-stream-system-prompt.txt")
+    Flux<String> generateMultiFileCodeJsonStream(@MemoryId long appId, @UserMessage String userMessage);
 }
@@ -1,20 +1,34 @@
 package com.lin.linaicodemother.ai;
 
 
+import cn.hutool.core.util.StrUtil;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.lin.linaicodemother.config.ChatMemoryCacheProperties;
 import com.lin.linaicodemother.service.ChatHistoryService;
 import dev.langchain4j.community.store.memory.chat.redis.RedisChatMemoryStore;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.service.AiServices;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @Author Lin
@@ -26,6 +40,11 @@ import java.time.Duration;
 @RequiredArgsConstructor
 public class AiCodeGeneratorServiceFactory {
 
+    /**
+     * 单条消息的固定开销估算（对象头、内容列表等），单位字节
+     */
+    private static final int MESSAGE_OVERHEAD_BYTES = 64;
+
     private final ChatModel chatModel;
 
     private final StreamingChatModel streamingChatModel;
@@ -34,54 +53,240 @@ public class AiCodeGeneratorServiceFactory {
 
     private final ChatHistoryService chatHistoryService;
 
+    private final ChatMemoryCacheProperties chatMemoryCacheProperties;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 共用的 AI 服务代理（反射、代理生成只做一次），各应用通过 @MemoryId 区分对话记忆
+     */
+    private AiCodeGeneratorService aiCodeGeneratorService;
+
+    /**
+     * 各应用对话记忆的统计（估算大小、是否有 AI 回复），在对话记忆读写 Redis 时顺带更新，
+     * 计算权重和判断是否有 AI 回复时不再单独读取 Redis
+     */
+    private final Map<Long, ChatMemoryStats> chatMemoryStats = new ConcurrentHashMap<>();
 
     /**
-     * AI 服务实例缓存
+     * 对话记忆缓存
      * 缓存策略：
-     * - 最大缓存 1000 个实例
+     * - 按消息估算大小（KB）计算权重，总权重不超过配置的容量预算
+     *   （消息本身保存在 Redis 中，权重限制的是缓存中活跃对话的总规模，而不是堆内存）
      * - 写入后 30 分钟过期
      * - 访问后 10 分钟过期
+     * 移除时同步从 AI 服务中驱逐该记忆（Redis 中的消息保留）
+     */
+    private Cache<Long, CachedChatMemory> chatMemoryCache;
+
+    /**
+     * 缓存中的对话记忆及其权重（创建或生成结束时计算，避免在缓存内部访问 Redis）
+     *
+     * @param chatMemory 对话记忆
+     * @param weight     权重，单位 KB
+     */
+    private record CachedChatMemory(MessageWindowChatMemory chatMemory, int weight) {
+    }
+
+    /**
+     * 对话记忆统计
+     *
+     * @param weight     估算大小，单位 KB（至少为 1）
+     * @param hasAiReply 是否已有 AI 回复
      */
-    private final Cache<Long, AiCodeGeneratorService> serviceCache = Caffeine.newBuilder()
-            .maximumSize(1000)
-            .expireAfterWrite(Duration.ofMinutes(30))
-            .expireAfterAccess(Duration.ofMinutes(10))
-            .removalListener((key, value, cause) ->
-                    log.debug("AI 服务实例被移除，appId: {}, 原因: {}", key, cause))
-            .build();
+    private record ChatMemoryStats(int weight, boolean hasAiReply) {
+    }
+
+    @PostConstruct
+    public void init() {
+        chatMemoryCache = Caffeine.newBuilder()
+                .maximumWeight(chatMemoryCacheProperties.getMaxWeight().toKilobytes())
+                .weigher((Long key, CachedChatMemory value) -> value.weight())
+                .expireAfterWrite(chatMemoryCacheProperties.getExpireAfterWrite())
+                .expireAfterAccess(chatMemoryCacheProperties.getExpireAfterAccess())
+                .recordStats()
+                .removalListener((Long key, CachedChatMemory value, RemovalCause cause) -> {
+                    log.debug("对话记忆被移除，appId: {}, 原因: {}", key, cause);
+                    meterRegistry.counter("ai.chat.memory.removals", "cause", cause.name()).increment();
+                    // 重新计算权重时会替换缓存值，此时记忆仍在使用
+                    if (key != null && cause != RemovalCause.REPLACED) {
+                        aiCodeGeneratorService.evictChatMemory(key);
+                        chatMemoryStats.remove(key);
+                    }
+                })
+                .build();
+        // 命中率、加载耗时、驱逐次数等指标（cache.gets、cache.load.duration、cache.evictions）
+        CaffeineCacheMetrics.monitor(meterRegistry, chatMemoryCache, "ai_chat_memory");
+        aiCodeGeneratorService = AiServices.builder(AiCodeGeneratorService.class)
+                .chatModel(chatModel)
+                .streamingChatModel(streamingChatModel)
+                .chatMemoryProvider(memoryId -> getChatMemory(Long.parseLong(memoryId.toString())))
+                .build();
+    }
 
     /**
      * 根据 appId 获取服务
+     * 返回共用的服务实例，同时预热并续期该应用的对话记忆，调用时需传入相同的 appId
      *
      * @param appId
      * @return
      */
     public AiCodeGeneratorService getAiCodeGeneratorService(long appId) {
-        return serviceCache.get(appId, this::createAiCodeGeneratorService);
+        getChatMemory(appId);
+        return aiCodeGeneratorService;
     }
 
     /**
-     * 创建新的 AI 服务实例
+     * 生成结束后重新计算对话记忆的权重（记忆中新增了消息）
+     *
+     * @param appId
+     */
+    public void refreshChatMemoryWeight(long appId) {
+        CachedChatMemory cached = chatMemoryCache.getIfPresent(appId);
+        ChatMemoryStats stats = chatMemoryStats.get(appId);
+        if (cached == null || stats == null) {
+            return;
+        }
+        int weight = stats.weight();
+        if (weight != cached.weight()) {
+            chatMemoryCache.asMap().replace(appId, cached, new CachedChatMemory(cached.chatMemory(), weight));
+        }
+    }
+
+    /**
+     * 应用的对话记忆中是否已有 AI 回复
      *
      * @param appId
      * @return
      */
-    private AiCodeGeneratorService createAiCodeGeneratorService(long appId) {
-        log.info("为 appId: {} 创建新的 AI 服务实例", appId);
+    public boolean hasAiReply(long appId) {
+        MessageWindowChatMemory chatMemory = getChatMemory(appId);
+        ChatMemoryStats stats = chatMemoryStats.get(appId);
+        if (stats == null) {
+            // 统计被并发移除，读取一次重新统计
+            chatMemory.messages();
+            stats = chatMemoryStats.get(appId);
+        }
+        return stats != null && stats.hasAiReply();
+    }
+
+    /**
+     * 向应用的对话记忆中追加消息（用于不经过大模型的回复，如命中响应缓存）
+     *
+     * @param appId
+     * @param messages
+     */
+    public void addToChatMemory(long appId, ChatMessage... messages) {
+        MessageWindowChatMemory chatMemory = getChatMemory(appId);
+        for (ChatMessage message : messages) {
+            chatMemory.add(message);
+        }
+        refreshChatMemoryWeight(appId);
+    }
+
+    /**
+     * 将对话记忆中最后一条 AI 消息替换为指定内容
+     * （流式结构化输出时，大模型写入记忆的是 JSON 原文，替换为展示给用户的 Markdown，与对话历史一致）
+     *
+     * @param appId
+     * @param text
+     */
+    public void replaceLastAiMessage(long appId, String text) {
+        getChatMemory(appId);
+        List<ChatMessage> messages = new ArrayList<>(statsTrackingChatMemoryStore.getMessages(appId));
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i) instanceof AiMessage) {
+                messages.set(i, AiMessage.from(text));
+                statsTrackingChatMemoryStore.updateMessages(appId, messages);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 获取应用的对话记忆，不存在时创建
+     *
+     * @param appId
+     * @return
+     */
+    private MessageWindowChatMemory getChatMemory(long appId) {
+        return chatMemoryCache.get(appId, this::createChatMemory).chatMemory();
+    }
+
+    /**
+     * 创建新的对话记忆
+     *
+     * @param appId
+     * @return
+     */
+    private CachedChatMemory createChatMemory(long appId) {
+        log.info("为 appId: {} 创建新的对话记忆", appId);
         // 根据 appId 构建独立的对话记忆
         MessageWindowChatMemory chatMemory = MessageWindowChatMemory
                 .builder()
                 .id(appId)
-                .chatMemoryStore(redisChatMemoryStore)
+                .chatMemoryStore(statsTrackingChatMemoryStore)
                 .maxMessages(20)
                 .build();
-        // 从数据库中加载对话历史到记忆中
-        chatHistoryService.loadChatHistoryToMemory(appId, chatMemory, 20);
-        return AiServices.builder(AiCodeGeneratorService.class)
-                .chatModel(chatModel)
-                .streamingChatModel(streamingChatModel)
-                .chatMemory(chatMemory)
-                .build();
+        // 预热对话记忆：优先复用 Redis 中的记忆，必要时从数据库加载（读写记忆时顺带统计）
+        chatHistoryService.warmUpChatMemory(appId, chatMemory, 20);
+        ChatMemoryStats stats = chatMemoryStats.get(appId);
+        if (stats == null) {
+            chatMemory.messages();
+            stats = chatMemoryStats.get(appId);
+        }
+        return new CachedChatMemory(chatMemory, stats != null ? stats.weight() : 1);
+    }
+
+    /**
+     * 统计对话记忆中的消息：估算大小（KB，至少为 1）及是否有 AI 回复
+     *
+     * @param appId
+     * @param messages
+     */
+    private void recordChatMemoryStats(long appId, List<ChatMessage> messages) {
+        long bytes = 0;
+        boolean hasAiReply = false;
+        for (ChatMessage message : messages) {
+            // 按 UTF-16 估算文本大小
+            bytes += MESSAGE_OVERHEAD_BYTES + 2L * getMessageText(message).length();
+            hasAiReply |= message instanceof AiMessage;
+        }
+        chatMemoryStats.put(appId, new ChatMemoryStats((int) Math.clamp(bytes / 1024, 1, Integer.MAX_VALUE), hasAiReply));
+    }
+
+    /**
+     * 包装 Redis 对话记忆存储：读写消息时顺带更新统计，不额外访问 Redis
+     */
+    private final ChatMemoryStore statsTrackingChatMemoryStore = new ChatMemoryStore() {
+
+        @Override
+        public List<ChatMessage> getMessages(Object memoryId) {
+            List<ChatMessage> messages = redisChatMemoryStore.getMessages(memoryId);
+            recordChatMemoryStats(Long.parseLong(memoryId.toString()), messages);
+            return messages;
+        }
+
+        @Override
+        public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+            redisChatMemoryStore.updateMessages(memoryId, messages);
+            recordChatMemoryStats(Long.parseLong(memoryId.toString()), messages);
+        }
+
+        @Override
+        public void deleteMessages(Object memoryId) {
+            redisChatMemoryStore.deleteMessages(memoryId);
+            recordChatMemoryStats(Long.parseLong(memoryId.toString()), List.of());
+        }
+    };
+
+    private String getMessageText(ChatMessage message) {
+        return switch (message) {
+            case UserMessage userMessage when userMessage.hasSingleText() -> userMessage.singleText();
+            case AiMessage aiMessage -> StrUtil.nullToEmpty(aiMessage.text());
+            case SystemMessage systemMessage -> systemMessage.text();
+            default -> message.toString();
+        };
     }
 
     /**
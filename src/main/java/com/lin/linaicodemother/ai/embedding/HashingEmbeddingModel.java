@@ -0,0 +1,105 @@
+package com.lin.linaicodemother.ai.embedding;
+
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/19 20:40
+ * @Descriptions 本地哈希向量模型
+ * 将文本的字符一元组、二元组通过特征哈希映射到固定维度的向量并归一化，适合判断提示词是否“换了个说法”。
+ * 不依赖外部服务和模型文件，计算开销极低；需要更好的语义效果时可以替换为其他 EmbeddingModel 实现。
+ */
+public class HashingEmbeddingModel implements EmbeddingModel {
+
+    /**
+     * 一元组权重（二元组为 1）
+     */
+    private static final float UNIGRAM_WEIGHT = 0.5f;
+
+    private final int dimension;
+
+    public HashingEmbeddingModel(int dimension) {
+        this.dimension = dimension;
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+        List<Embedding> embeddings = new ArrayList<>(textSegments.size());
+        for (TextSegment textSegment : textSegments) {
+            embeddings.add(Embedding.from(embedVector(textSegment.text())));
+        }
+        return Response.from(embeddings);
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    /**
+     * 计算文本的归一化向量
+     *
+     * @param text 文本
+     * @return 向量（L2 范数为 1，文本没有有效字符时为全 0）
+     */
+    public float[] embedVector(String text) {
+        float[] vector = new float[dimension];
+        String normalized = text.toLowerCase(Locale.ROOT);
+        // 上一个有效字符，遇到标点、空白时断开，不跨越组成二元组
+        char previous = 0;
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                previous = 0;
+                continue;
+            }
+            addFeature(vector, c, UNIGRAM_WEIGHT);
+            if (previous != 0) {
+                addFeature(vector, (previous << 16) | c | 0x80000000, 1f);
+            }
+            previous = c;
+        }
+        normalize(vector);
+        return vector;
+    }
+
+    /**
+     * 特征哈希：哈希值决定维度和符号，减少冲突带来的偏差
+     */
+    private void addFeature(float[] vector, int feature, float weight) {
+        int hash = mix(feature);
+        int index = (hash >>> 1) % dimension;
+        vector[index] += (hash & 1) == 0 ? weight : -weight;
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static void normalize(float[] vector) {
+        double sum = 0;
+        for (float value : vector) {
+            sum += value * value;
+        }
+        if (sum == 0) {
+            return;
+        }
+        float scale = (float) (1 / Math.sqrt(sum));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+    }
+}
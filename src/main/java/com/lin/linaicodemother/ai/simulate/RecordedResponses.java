@@ -0,0 +1,106 @@
+package com.lin.linaicodemother.ai.simulate;
+
+
+import cn.hutool.core.io.resource.ResourceUtil;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.model.chat.request.ChatRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/18 20:18
+ * @Descriptions 录制的大模型响应
+ * 按请求中的系统提示词选择对应的录制响应（resources/simulate 目录），与生成类型、输出格式保持一致；
+ * 非流式的结构化输出（返回 HtmlCodeResult 等对象）使用对应类型的 JSON 响应
+ */
+public class RecordedResponses {
+
+    /**
+     * 系统提示词资源 -> 录制的响应资源
+     */
+    private static final Map<String, String> RECORDINGS = Map.of(
+            "prompt/codegen-html-system-prompt.txt", "simulate/codegen-html-response.txt",
+            "prompt/codegen-multi-file-system-prompt.txt", "simulate/codegen-multi-file-response.txt",
+            "prompt/codegen-html-json-stream-system-prompt.txt", "simulate/codegen-html-json-stream-response.txt",
+            "prompt/codegen-multi-file-json-stream-system-prompt.txt", "simulate/codegen-multi-file-json-stream-response.txt"
+    );
+
+    /**
+     * 系统提示词资源 -> 录制的结构化（JSON）响应资源
+     */
+    private static final Map<String, String> STRUCTURED_RECORDINGS = Map.of(
+            "prompt/codegen-html-system-prompt.txt", "simulate/codegen-html-json-stream-response.txt",
+            "prompt/codegen-multi-file-system-prompt.txt", "simulate/codegen-multi-file-json-stream-response.txt",
+            "prompt/codegen-html-json-stream-system-prompt.txt", "simulate/codegen-html-json-stream-response.txt",
+            "prompt/codegen-multi-file-json-stream-system-prompt.txt", "simulate/codegen-multi-file-json-stream-response.txt"
+    );
+
+    /**
+     * 没有匹配的系统提示词时使用的响应
+     */
+    private static final String DEFAULT_RECORDING = "simulate/codegen-html-response.txt";
+
+    private static final String DEFAULT_STRUCTURED_RECORDING = "simulate/codegen-html-json-stream-response.txt";
+
+    /**
+     * 系统提示词内容（去掉首尾空白） -> 录制的响应
+     */
+    private final Map<String, String> responsesBySystemPrompt = new HashMap<>();
+
+    private final Map<String, String> structuredResponsesBySystemPrompt = new HashMap<>();
+
+    private final String defaultResponse;
+
+    private final String defaultStructuredResponse;
+
+    public RecordedResponses() {
+        RECORDINGS.forEach((prompt, recording) ->
+                responsesBySystemPrompt.put(ResourceUtil.readUtf8Str(prompt).trim(), ResourceUtil.readUtf8Str(recording)));
+        STRUCTURED_RECORDINGS.forEach((prompt, recording) ->
+                structuredResponsesBySystemPrompt.put(ResourceUtil.readUtf8Str(prompt).trim(), ResourceUtil.readUtf8Str(recording)));
+        this.defaultResponse = ResourceUtil.readUtf8Str(DEFAULT_RECORDING);
+        this.defaultStructuredResponse = ResourceUtil.readUtf8Str(DEFAULT_STRUCTURED_RECORDING);
+    }
+
+    /**
+     * 获取请求对应的响应
+     *
+     * @param chatRequest 请求
+     * @return 录制的响应
+     */
+    public String responseFor(ChatRequest chatRequest) {
+        return lookup(chatRequest, responsesBySystemPrompt, defaultResponse);
+    }
+
+    /**
+     * 获取请求对应的结构化（JSON）响应
+     *
+     * @param chatRequest 请求
+     * @return 录制的 JSON 响应
+     */
+    public String structuredResponseFor(ChatRequest chatRequest) {
+        return lookup(chatRequest, structuredResponsesBySystemPrompt, defaultStructuredResponse);
+    }
+
+    /**
+     * 获取系统提示词对应的响应
+     *
+     * @param systemPromptResource 系统提示词资源路径，如 prompt/codegen-html-system-prompt.txt
+     * @return 录制的响应
+     */
+    public String responseFor(String systemPromptResource) {
+        return ResourceUtil.readUtf8Str(RECORDINGS.getOrDefault(systemPromptResource, DEFAULT_RECORDING));
+    }
+
+    private static String lookup(ChatRequest chatRequest, Map<String, String> responses, String defaultResponse) {
+        for (ChatMessage message : chatRequest.messages()) {
+            if (message instanceof SystemMessage systemMessage) {
+                return responses.getOrDefault(systemMessage.text().trim(), defaultResponse);
+            }
+        }
+        return defaultResponse;
+    }
+}
@@ -0,0 +1,61 @@
+package com.lin.linaicodemother.ai.simulate;
+
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.FinishReason;
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/19 20:15
+ * @Descriptions 模拟的非流式大模型
+ * 返回录制的结构化（JSON）响应，耗时 = 首个 token 延迟 + 全部 token 按配置速度输出的时间
+ */
+public class SimulatedChatModel implements ChatModel {
+
+    private static final String MODEL_NAME = "simulated";
+
+    private final RecordedResponses recordedResponses;
+
+    private final SimulatedModelOptions options;
+
+    private final AtomicLong requestCount = new AtomicLong();
+
+    public SimulatedChatModel(RecordedResponses recordedResponses, SimulatedModelOptions options) {
+        this.recordedResponses = recordedResponses;
+        this.options = options;
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest chatRequest) {
+        String response = recordedResponses.structuredResponseFor(chatRequest);
+        long requestNo = requestCount.getAndIncrement();
+        int totalTokens = Math.max(response.length() / Math.max(options.getCharsPerToken(), 1), 1);
+        long delayNanos = options.getTimeToFirstToken().toNanos();
+        if (options.getTokensPerSecond() > 0) {
+            delayNanos += (long) (totalTokens * TimeUnit.SECONDS.toNanos(1) / options.getTokensPerSecond());
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(delayNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("模拟的大模型调用被中断", e);
+        }
+        if (new SplittableRandom(options.getSeed() ^ requestNo).nextDouble() < options.getErrorRate()) {
+            throw new IllegalStateException("模拟的大模型调用失败，请求序号: " + requestNo);
+        }
+        return ChatResponse.builder()
+                .aiMessage(AiMessage.from(response))
+                .modelName(MODEL_NAME)
+                .tokenUsage(new TokenUsage(0, totalTokens))
+                .finishReason(FinishReason.STOP)
+                .build();
+    }
+}
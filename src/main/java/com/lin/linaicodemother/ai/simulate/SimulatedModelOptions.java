@@ -0,0 +1,40 @@
+package com.lin.linaicodemother.ai.simulate;
+
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/18 20:10
+ * @Descriptions 模拟大模型的参数
+ */
+@Data
+public class SimulatedModelOptions {
+
+    /**
+     * 首个 token 的等待时间
+     */
+    private Duration timeToFirstToken = Duration.ofMillis(500);
+
+    /**
+     * 每秒输出的 token 数，小于等于 0 时不限速（一次性输出）
+     */
+    private double tokensPerSecond = 50;
+
+    /**
+     * 每个 token 的字符数
+     */
+    private int charsPerToken = 4;
+
+    /**
+     * 请求失败的概率（0 ~ 1），失败发生在输出中途的随机位置
+     */
+    private double errorRate = 0;
+
+    /**
+     * 随机种子，相同种子下第 N 个请求的行为固定
+     */
+    private long seed = 42;
+}
@@ -0,0 +1,102 @@
+package com.lin.linaicodemother.ai.simulate;
+
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.output.FinishReason;
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/18 20:32
+ * @Descriptions 模拟的流式大模型
+ * 按录制的响应回放，首个 token 延迟、输出速度、失败概率可配置，用于基准测试和压测（不访问网络）。
+ * 每个请求在独立的虚拟线程中回调（与真实模型每个连接一个回调线程的行为一致），
+ * 落后于预定速度时连续输出，不会因为调度抖动拉低整体速度。
+ */
+public class SimulatedStreamingChatModel implements StreamingChatModel {
+
+    private static final String MODEL_NAME = "simulated";
+
+    private final RecordedResponses recordedResponses;
+
+    private final SimulatedModelOptions options;
+
+    /**
+     * 请求序号，与随机种子一起决定该请求是否失败
+     */
+    private final AtomicLong requestCount = new AtomicLong();
+
+    public SimulatedStreamingChatModel(RecordedResponses recordedResponses, SimulatedModelOptions options) {
+        this.recordedResponses = recordedResponses;
+        this.options = options;
+    }
+
+    @Override
+    public void doChat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        String response = recordedResponses.responseFor(chatRequest);
+        long requestNo = requestCount.getAndIncrement();
+        Thread.ofVirtual().name("simulated-stream-", requestNo).start(() -> {
+            try {
+                stream(response, requestNo, handler);
+            } catch (Exception e) {
+                handler.onError(e);
+            }
+        });
+    }
+
+    /**
+     * 按配置的速度逐个 token 输出
+     */
+    private void stream(String response, long requestNo, StreamingChatResponseHandler handler) {
+        int charsPerToken = Math.max(options.getCharsPerToken(), 1);
+        int totalTokens = Math.max((response.length() + charsPerToken - 1) / charsPerToken, 1);
+        // 失败的请求在随机的 token 位置中断
+        SplittableRandom random = new SplittableRandom(options.getSeed() ^ requestNo);
+        int failAt = random.nextDouble() < options.getErrorRate() ? random.nextInt(totalTokens) : -1;
+        double tokensPerSecond = options.getTokensPerSecond();
+        long firstTokenAt = System.nanoTime() + options.getTimeToFirstToken().toNanos();
+        parkUntil(firstTokenAt);
+        int position = 0;
+        int emitted = 0;
+        while (position < response.length()) {
+            if (emitted == failAt) {
+                handler.onError(new IllegalStateException("模拟的大模型调用失败，请求序号: " + requestNo));
+                return;
+            }
+            if (tokensPerSecond > 0) {
+                // 第 N 个 token 的预定输出时间
+                parkUntil(firstTokenAt + (long) (emitted * TimeUnit.SECONDS.toNanos(1) / tokensPerSecond));
+            }
+            int end = Math.min(position + charsPerToken, response.length());
+            // 不拆开代理对
+            if (end < response.length() && Character.isHighSurrogate(response.charAt(end - 1))) {
+                end++;
+            }
+            handler.onPartialResponse(response.substring(position, end));
+            position = end;
+            emitted++;
+        }
+        handler.onCompleteResponse(ChatResponse.builder()
+                .aiMessage(AiMessage.from(response))
+                .modelName(MODEL_NAME)
+                .tokenUsage(new TokenUsage(0, emitted))
+                .finishReason(FinishReason.STOP)
+                .build());
+    }
+
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
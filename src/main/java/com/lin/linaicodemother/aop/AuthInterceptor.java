@@ -4,7 +4,7 @@ package com.lin.linaicodemother.aop;
 import com.lin.linaicodemother.annotation.AuthCheck;
 import com.lin.linaicodemother.exception.BusinessException;
 import com.lin.linaicodemother.exception.ErrorCode;
-import com.lin.linaicodemother.model.entity.User;
+import com.lin.linaicodemother.model.dto.user.LoginUserState;
 import com.lin.linaicodemother.model.enums.UserRoleEnum;
 import com.lin.linaicodemother.service.UserService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -36,8 +36,8 @@ public class AuthInterceptor {
         String mustRole = authCheck.mustRole();
         RequestAttributes requestAttributes = RequestContextHolder.currentRequestAttributes();
         HttpServletRequest request = ((ServletRequestAttributes) requestAttributes).getRequest();
-        // 获取当前登录用户
-        User loginUser = userService.getLoginUser(request);
+        // 获取当前登录用户的角色
+        LoginUserState loginUser = userService.getLoginUserState(request);
         UserRoleEnum mustRoleEnum = UserRoleEnum.getEnumByValue(mustRole);
         // 不需要权限，直接放行
         if (mustRoleEnum == null) {
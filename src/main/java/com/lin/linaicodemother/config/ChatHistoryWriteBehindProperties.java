@@ -0,0 +1,55 @@
+package com.lin.linaicodemother.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/10 20:12
+ * @Descriptions 对话历史异步批量写入配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "chat-history.write-behind")
+public class ChatHistoryWriteBehindProperties {
+
+    /**
+     * 是否开启异步批量写入，关闭则每条消息同步插入
+     */
+    private boolean enabled = true;
+
+    /**
+     * 每批最多插入的条数
+     */
+    private int batchSize = 100;
+
+    /**
+     * 攒批的最长等待时间
+     */
+    private Duration maxDelay = Duration.ofMillis(50);
+
+    /**
+     * 内存队列容量，队列满时退化为同步插入
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * 批量插入失败后的重试间隔
+     */
+    private Duration retryInterval = Duration.ofSeconds(1);
+
+    /**
+     * 落盘文件：入队的消息先追加到该文件的分段（spill.jsonl.0、spill.jsonl.1……），每段都写库成功后删除；进程崩溃后启动时重新写入
+     */
+    private String spillFile = System.getProperty("user.dir") + "/tmp/chat_history/spill.jsonl";
+
+    /**
+     * 落盘分段大小，当前段超过该大小后切换到新段
+     */
+    private DataSize spillSegmentSize = DataSize.ofMegabytes(4);
+}
@@ -0,0 +1,36 @@
+package com.lin.linaicodemother.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/12 21:05
+ * @Descriptions 对话记忆本地缓存配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ai.chat-memory-cache")
+public class ChatMemoryCacheProperties {
+
+    /**
+     * 缓存容量预算，按每个应用对话记忆中消息的估算大小计算权重
+     * （消息保存在 Redis 中，估算大小在读写记忆时本地统计，不额外读取 Redis）
+     */
+    private DataSize maxWeight = DataSize.ofMegabytes(64);
+
+    /**
+     * 写入后过期时间
+     */
+    private Duration expireAfterWrite = Duration.ofMinutes(30);
+
+    /**
+     * 访问后过期时间
+     */
+    private Duration expireAfterAccess = Duration.ofMinutes(10);
+}
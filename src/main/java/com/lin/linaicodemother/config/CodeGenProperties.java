@@ -0,0 +1,176 @@
+package com.lin.linaicodemother.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/4 21:15
+ * @Descriptions 代码生成相关配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "code-gen")
+public class CodeGenProperties {
+
+    /**
+     * 流式保存：代码块闭合后立即写入文件，关闭则在生成结束后统一保存
+     */
+    private boolean streamSave = true;
+
+    /**
+     * 流式结构化输出：AI 以 JSON 格式输出，边接收边解析，每个代码字段结束时立即保存
+     * 开启后不使用流式保存开关和提示词响应缓存
+     */
+    private boolean jsonStream = false;
+
+    /**
+     * 生成结束后的处理（解析、保存文件、保存对话历史）
+     */
+    private PostProcess postProcess = new PostProcess();
+
+    /**
+     * 同一应用同一时间只允许一个生成任务
+     */
+    private GenerationLease generationLease = new GenerationLease();
+
+    /**
+     * SSE 推送时合并内容，减少小帧
+     */
+    private SseCoalesce sseCoalesce = new SseCoalesce();
+
+    /**
+     * 首轮对话的提示词响应缓存
+     */
+    private ResponseCache responseCache = new ResponseCache();
+
+    @Data
+    public static class PostProcess {
+
+        /**
+         * 最大并发数（虚拟线程）
+         */
+        private int maxConcurrency = 64;
+
+        /**
+         * 等待队列容量，队列满时拒绝新任务（计入 post.generation.rejected 指标）
+         */
+        private int queueCapacity = 1000;
+
+        /**
+         * 关闭时等待队列中任务完成的最长时间
+         */
+        private Duration shutdownTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class GenerationLease {
+
+        /**
+         * 是否同时在 Redis 中加锁（多节点部署时开启），其他节点正在生成时直接拒绝
+         */
+        private boolean redisEnabled = false;
+
+        /**
+         * Redis 锁的过期时间，生成期间每隔 redisTtl / 3 续期；节点宕机时锁最多保留这么久
+         */
+        private Duration redisTtl = Duration.ofSeconds(30);
+
+        /**
+         * 每次生成最多缓存的内容段数，用于重复请求和断线重连时重放
+         */
+        private int replayBufferSize = 10000;
+
+        /**
+         * 生成结束后保留多久，期间断线重连（带 Last-Event-ID）仍可续传剩余内容
+         */
+        private Duration resumeGracePeriod = Duration.ofMinutes(2);
+    }
+
+    @Data
+    public static class SseCoalesce {
+
+        /**
+         * 最长合并时间，为 0 时不合并（每段内容单独推送）
+         */
+        private Duration maxDelay = Duration.ofMillis(30);
+
+        /**
+         * 合并内容超过该字节数时立即推送
+         */
+        private int maxBytes = 2048;
+    }
+
+    @Data
+    public static class ResponseCache {
+
+        /**
+         * 是否开启（默认关闭）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 缓存时间
+         */
+        private Duration ttl = Duration.ofHours(1);
+
+        /**
+         * 缓存容量（按响应内容大小计算）
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+
+        /**
+         * 命中时模拟流式输出，每段的字符数
+         */
+        private int replayChunkSize = 32;
+
+        /**
+         * 命中时模拟流式输出，每段之间的间隔，为 0 时一次性输出
+         */
+        private Duration replayInterval = Duration.ofMillis(10);
+
+        /**
+         * 相似提示词匹配
+         */
+        private Semantic semantic = new Semantic();
+
+        @Data
+        public static class Semantic {
+
+            /**
+             * 是否开启（默认关闭）
+             */
+            private boolean enabled = false;
+
+            /**
+             * 余弦相似度阈值，不低于该值的提示词作为候选（字符哈希向量下换了说法的提示词通常在 0.7 ~ 0.9）
+             */
+            private double similarityThreshold = 0.65;
+
+            /**
+             * 两个提示词不同的部分只是增删字词时，最多允许增加的字符数（如“帮我”“请”）
+             */
+            private int maxInsertedChars = 4;
+
+            /**
+             * 两个提示词不同的部分的字符集合最低重合度（Jaccard），换了说法时用字大多相同，换了关键词（如“红色”换成“蓝色”）时几乎不重合
+             */
+            private double minSpanOverlap = 0.5;
+
+            /**
+             * 每种生成类型最多索引的提示词数，超过后覆盖最早的
+             */
+            private int maxEntries = 1000;
+
+            /**
+             * 向量维度
+             */
+            private int dimension = 512;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.lin.linaicodemother.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/28 20:10
+ * @Descriptions 应用部署配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "deploy")
+public class DeployProperties {
+
+    /**
+     * 每个应用保留的部署版本数（含当前版本），可以回滚到其中任意一个
+     */
+    private int retainedVersions = 5;
+}
@@ -0,0 +1,63 @@
+package com.lin.linaicodemother.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/25 20:00
+ * @Descriptions 登录令牌配置（无状态登录）
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "login-token")
+public class LoginTokenProperties {
+
+    /**
+     * 是否使用签名令牌代替会话保存登录态
+     */
+    private boolean enabled = false;
+
+    /**
+     * 签名密钥（至少 32 字节），所有节点必须相同
+     */
+    private String secret;
+
+    /**
+     * 令牌有效期
+     */
+    private Duration ttl = Duration.ofDays(7);
+
+    /**
+     * 保存令牌的 Cookie 名称，也可以通过 Authorization: Bearer 请求头传递
+     */
+    private String cookieName = "login_token";
+
+    /**
+     * 吊销列表
+     */
+    private Revocation revocation = new Revocation();
+
+    @Data
+    public static class Revocation {
+
+        /**
+         * 布隆过滤器预计容纳的吊销令牌数
+         */
+        private int expectedInsertions = 100_000;
+
+        /**
+         * 布隆过滤器误判率（误判时再查询 Redis 确认）
+         */
+        private double falsePositiveRate = 0.001;
+
+        /**
+         * 从 Redis 全量重建吊销列表的间隔（同时清理已过期的令牌）
+         */
+        private Duration syncInterval = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,50 @@
+package com.lin.linaicodemother.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/26 20:00
+ * @Descriptions 密码哈希配置（PBKDF2-HMAC-SHA256）
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "password-hash")
+public class PasswordHashProperties {
+
+    /**
+     * 迭代次数，为 0 时启动时按 targetLatency 自动测定；
+     * 自动测定的结果因节点而异，多节点部署时建议按某次启动日志中的测定值配置固定值，低于该值的哈希会在登录时重新计算
+     */
+    private int iterations = 0;
+
+    /**
+     * 自动测定时单次哈希的目标耗时
+     */
+    private Duration targetLatency = Duration.ofMillis(50);
+
+    /**
+     * 自动测定的迭代次数下限，自动测定时低于该值的哈希会在登录时重新计算
+     */
+    private int minIterations = 100_000;
+
+    /**
+     * 自动测定的迭代次数上限
+     */
+    private int maxIterations = 2_000_000;
+
+    /**
+     * 同时计算哈希的线程数，默认为 CPU 核数
+     */
+    private int maxConcurrency = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 等待计算的请求数上限，超过时直接拒绝登录
+     */
+    private int queueCapacity = 200;
+}
@@ -0,0 +1,57 @@
+package com.lin.linaicodemother.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/21 20:40
+ * @Descriptions 敏感词检查配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "sensitive-word")
+public class SensitiveWordProperties {
+
+    /**
+     * 是否使用 sensitive-word 内置的词库
+     */
+    private boolean includeDefaultWords = true;
+
+    /**
+     * 本地词库文件，每行一个词；# 开头为注释，! 开头表示从词库中移除（白名单）
+     */
+    private String wordFile = System.getProperty("user.dir") + "/tmp/sensitive/words.txt";
+
+    /**
+     * 检查本地词库文件是否变更的间隔，变更后重新构建自动机，为 0 时不检查
+     */
+    private Duration reloadInterval = Duration.ofSeconds(30);
+
+    /**
+     * 最近检查过的提示词结果缓存条数
+     */
+    private int cacheSize = 1024;
+
+    /**
+     * AI 输出过滤配置
+     */
+    private Output output = new Output();
+
+    @Data
+    public static class Output {
+
+        /**
+         * 过滤方式：FLAG 只记录命中，MASK 将命中的字符替换为 *，NONE 不过滤
+         */
+        private OutputFilterMode mode = OutputFilterMode.FLAG;
+    }
+
+    public enum OutputFilterMode {
+        NONE, FLAG, MASK
+    }
+}
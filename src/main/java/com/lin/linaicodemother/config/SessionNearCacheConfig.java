@@ -0,0 +1,82 @@
+package com.lin.linaicodemother.config;
+
+
+import com.lin.linaicodemother.manager.NearCacheSessionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.boot.autoconfigure.session.SessionProperties;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+
+import java.time.Duration;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/24 21:00
+ * @Descriptions 会话存储配置：使用带本地缓存的 Redis 会话存储替换 Spring Session 默认的 Redis 会话存储
+ */
+@Slf4j
+@Configuration
+@EnableSpringHttpSession
+@ConditionalOnProperty(prefix = "session-near-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SessionNearCacheConfig {
+
+    /**
+     * 需要的键空间通知类型：K 键空间事件，g 通用命令（del、rename、expire），$ 字符串命令（版本号 incr），x 过期
+     */
+    private static final String REQUIRED_KEYSPACE_EVENTS = "Kg$x";
+
+    private static final String NOTIFY_KEYSPACE_EVENTS = "notify-keyspace-events";
+
+    @Bean
+    public NearCacheSessionRepository sessionRepository(StringRedisTemplate stringRedisTemplate,
+                                                        RedisConnectionFactory redisConnectionFactory,
+                                                        RedisMessageListenerContainer redisMessageListenerContainer,
+                                                        RedisProperties redisProperties,
+                                                        SessionNearCacheProperties properties,
+                                                        SessionProperties sessionProperties,
+                                                        ServerProperties serverProperties,
+                                                        MeterRegistry meterRegistry) {
+        // 与 Spring Boot 相同：优先 spring.session.timeout，否则使用 server.servlet.session.timeout
+        Duration timeout = sessionProperties.determineTimeout(() -> serverProperties.getServlet().getSession().getTimeout());
+        NearCacheSessionRepository repository = new NearCacheSessionRepository(stringRedisTemplate, properties, timeout, meterRegistry);
+        if (properties.isConfigureKeyspaceNotifications()) {
+            configureKeyspaceNotifications(redisConnectionFactory);
+        }
+        String pattern = "__keyspace@" + redisProperties.getDatabase() + "__:" + repository.getKeyPrefix() + "*";
+        redisMessageListenerContainer.addMessageListener(repository, new PatternTopic(pattern));
+        return repository;
+    }
+
+    /**
+     * 开启会话失效需要的键空间通知（保留已有配置）
+     */
+    private static void configureKeyspaceNotifications(RedisConnectionFactory redisConnectionFactory) {
+        try (RedisConnection connection = redisConnectionFactory.getConnection()) {
+            String current = connection.serverCommands().getConfig(NOTIFY_KEYSPACE_EVENTS).getProperty(NOTIFY_KEYSPACE_EVENTS, "");
+            StringBuilder events = new StringBuilder(current);
+            for (char event : REQUIRED_KEYSPACE_EVENTS.toCharArray()) {
+                // A 是 g$lshzxet 的别名
+                boolean covered = current.indexOf(event) >= 0 || (event != 'K' && current.indexOf('A') >= 0);
+                if (!covered) {
+                    events.append(event);
+                }
+            }
+            if (events.length() != current.length()) {
+                connection.serverCommands().setConfig(NOTIFY_KEYSPACE_EVENTS, events.toString());
+            }
+        } catch (Exception e) {
+            // 无法开启时本地缓存只依赖过期时间失效
+            log.warn("开启 Redis 键空间通知失败，请手动配置 notify-keyspace-events={}: {}", REQUIRED_KEYSPACE_EVENTS, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.lin.linaicodemother.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/24 20:10
+ * @Descriptions 会话本地缓存配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "session-near-cache")
+public class SessionNearCacheProperties {
+
+    /**
+     * 是否开启，关闭后使用 Spring Session 默认的 Redis 会话存储
+     */
+    private boolean enabled = true;
+
+    /**
+     * 会话在本地缓存的时间，兜底失效通知丢失的情况
+     */
+    private Duration ttl = Duration.ofSeconds(5);
+
+    /**
+     * 最大缓存会话数
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * 只有最后访问时间变化时，间隔多久才写回 Redis（需远小于会话过期时间）
+     */
+    private Duration accessWriteInterval = Duration.ofMinutes(1);
+
+    /**
+     * Redis 中会话 key 的命名空间，与 Spring Session 默认值一致
+     */
+    private String redisNamespace = "spring:session";
+
+    /**
+     * 启动时是否自动开启 Redis 键空间通知（notify-keyspace-events），云 Redis 禁用 CONFIG 命令时需手动配置
+     */
+    private boolean configureKeyspaceNotifications = true;
+}
@@ -0,0 +1,52 @@
+package com.lin.linaicodemother.config;
+
+
+import com.lin.linaicodemother.ai.simulate.RecordedResponses;
+import com.lin.linaicodemother.ai.simulate.SimulatedChatModel;
+import com.lin.linaicodemother.ai.simulate.SimulatedModelOptions;
+import com.lin.linaicodemother.ai.simulate.SimulatedStreamingChatModel;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/19 20:30
+ * @Descriptions 模拟大模型配置
+ * 开启 simulate 环境时（--spring.profiles.active=local,simulate）使用本地回放录制响应的模型代替真实大模型，
+ * 用于压测和离线调试，参数见 application-simulate.yml
+ */
+@Slf4j
+@Profile("simulate")
+@Configuration
+public class SimulatedModelConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "ai.simulate")
+    public SimulatedModelOptions simulatedModelOptions() {
+        return new SimulatedModelOptions();
+    }
+
+    @Bean
+    public RecordedResponses recordedResponses() {
+        return new RecordedResponses();
+    }
+
+    @Bean
+    @Primary
+    public StreamingChatModel simulatedStreamingChatModel(RecordedResponses recordedResponses, SimulatedModelOptions simulatedModelOptions) {
+        log.warn("使用模拟的流式大模型: {}", simulatedModelOptions);
+        return new SimulatedStreamingChatModel(recordedResponses, simulatedModelOptions);
+    }
+
+    @Bean
+    @Primary
+    public ChatModel simulatedChatModel(RecordedResponses recordedResponses, SimulatedModelOptions simulatedModelOptions) {
+        return new SimulatedChatModel(recordedResponses, simulatedModelOptions);
+    }
+}
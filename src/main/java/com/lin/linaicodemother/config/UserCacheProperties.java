@@ -0,0 +1,34 @@
+package com.lin.linaicodemother.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/23 20:10
+ * @Descriptions 登录用户本地缓存配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "user-cache")
+public class UserCacheProperties {
+
+    /**
+     * 是否开启，关闭后每次都查询数据库
+     */
+    private boolean enabled = true;
+
+    /**
+     * 写入后过期时间，兜底跨节点失效通知丢失的情况
+     */
+    private Duration expireAfterWrite = Duration.ofSeconds(60);
+
+    /**
+     * 最大缓存用户数
+     */
+    private long maximumSize = 10_000;
+}
@@ -20,6 +20,11 @@ public interface AppConstant {
      */
     String CODE_OUTPUT_ROOT_DIR = System.getProperty("user.dir") + "/tmp/code_output";
 
+    /**
+     * 流式保存时的临时文件目录（与生成目录在同一文件系统，但不在预览、部署的目录中）
+     */
+    String CODE_OUTPUT_TEMP_DIR = System.getProperty("user.dir") + "/tmp/code_output_temp";
+
     /**
      * 应用部署目录
      */
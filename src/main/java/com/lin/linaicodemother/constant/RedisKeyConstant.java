@@ -0,0 +1,33 @@
+package com.lin.linaicodemother.constant;
+
+/**
+ * Redis Key 常量
+ */
+public interface RedisKeyConstant {
+
+    /**
+     * 对话记忆高水位：Redis 对话记忆已同步到的最后一条对话历史 id，key 不存在说明记忆需要从数据库重新加载
+     */
+    String CHAT_MEMORY_HWM_KEY_PREFIX = "chat_memory:hwm:";
+
+    /**
+     * 应用生成租约：多节点部署时保证同一应用同一时间只有一个节点在生成
+     */
+    String GENERATION_LEASE_KEY_PREFIX = "gen:lease:";
+
+    /**
+     * 登录用户缓存失效通知频道：消息内容为用户 id，各节点收到后删除本地缓存
+     */
+    String USER_CACHE_INVALIDATE_CHANNEL = "user:cache:invalidate";
+
+    /**
+     * 已吊销的登录令牌（有序集合）：成员为令牌随机数，分数为令牌过期时间
+     */
+    String LOGIN_TOKEN_REVOKED_KEY = "login:token:revoked";
+
+    /**
+     * 登录令牌吊销通知频道：消息内容为令牌随机数，各节点收到后加入本地布隆过滤器
+     */
+    String LOGIN_TOKEN_REVOKED_CHANNEL = "login:token:revoked";
+
+}
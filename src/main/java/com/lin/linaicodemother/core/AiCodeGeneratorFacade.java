@@ -5,17 +5,29 @@ import com.lin.linaicodemother.ai.AiCodeGeneratorService;
 import com.lin.linaicodemother.ai.AiCodeGeneratorServiceFactory;
 import com.lin.linaicodemother.ai.model.HtmlCodeResult;
 import com.lin.linaicodemother.ai.model.MultiFileCodeResult;
+import com.lin.linaicodemother.config.CodeGenProperties;
+import com.lin.linaicodemother.core.parser.CodeBlockListener;
 import com.lin.linaicodemother.core.parser.CodeParserExecutor;
+import com.lin.linaicodemother.core.parser.CodeResultCollector;
+import com.lin.linaicodemother.core.parser.StreamingCodeParser;
+import com.lin.linaicodemother.core.parser.StreamingJsonCodeParser;
 import com.lin.linaicodemother.core.saver.CodeFileSaverExecutor;
+import com.lin.linaicodemother.core.saver.StreamingCodeFileWriter;
+import com.lin.linaicodemother.core.sensitive.StreamingSensitiveFilter;
 import com.lin.linaicodemother.exception.BusinessException;
 import com.lin.linaicodemother.exception.ErrorCode;
+import com.lin.linaicodemother.model.enums.CodeFileTypeEnum;
 import com.lin.linaicodemother.model.enums.CodeGenTypeEnum;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.io.File;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @Author Lin
@@ -29,6 +41,14 @@ public class AiCodeGeneratorFacade {
 
     private final AiCodeGeneratorServiceFactory aiCodeGeneratorServiceFactory;
 
+    private final CodeGenProperties codeGenProperties;
+
+    private final PostGenerationExecutor postGenerationExecutor;
+
+    private final PromptResponseCache promptResponseCache;
+
+    private final StreamingSensitiveFilter streamingSensitiveFilter;
+
     /**
      * 统一入口：根据类型生成并保存代码
      *
@@ -41,15 +61,23 @@ public class AiCodeGeneratorFacade {
         if (codeGenTypeEnum == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "生成类型不能为空");
         }
-        // 根据 appId 获取相应的 AI 服务实例
+        // 获取 AI 服务，同时预热该应用的对话记忆
         AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(appId);
+        // 首轮对话命中提示词响应缓存时直接解析保存
+        String cachedResponse = isResponseCacheable(appId) ? getCachedResponse(userMessage, codeGenTypeEnum, appId) : null;
+        if (cachedResponse != null) {
+            Object parsedResult = CodeParserExecutor.executeParser(cachedResponse, codeGenTypeEnum);
+            return CodeFileSaverExecutor.executeSaver(parsedResult, codeGenTypeEnum, appId);
+        }
         return switch (codeGenTypeEnum) {
             case HTML -> {
-                HtmlCodeResult result = aiCodeGeneratorService.generateHtmlCode(userMessage);
+                HtmlCodeResult result = aiCodeGeneratorService.generateHtmlCode(appId, userMessage);
+                aiCodeGeneratorServiceFactory.refreshChatMemoryWeight(appId);
                 yield CodeFileSaverExecutor.executeSaver(result, CodeGenTypeEnum.HTML, appId);
             }
             case MULTI_FILE -> {
-                MultiFileCodeResult result = aiCodeGeneratorService.generateMultiFileCode(userMessage);
+                MultiFileCodeResult result = aiCodeGeneratorService.generateMultiFileCode(appId, userMessage);
+                aiCodeGeneratorServiceFactory.refreshChatMemoryWeight(appId);
                 yield CodeFileSaverExecutor.executeSaver(result, CodeGenTypeEnum.MULTI_FILE, appId);
             }
         };
@@ -64,21 +92,84 @@ public class AiCodeGeneratorFacade {
      * @return 保存的目录
      */
     public Flux<String> generateAndSaveCodeStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum, Long appId) {
+        ResponseAccumulator response = new ResponseAccumulator();
+        return generateAndSaveCodeStream(userMessage, codeGenTypeEnum, appId, response)
+                .doFinally(signalType -> response.release());
+    }
+
+    /**
+     * 统一入口：根据类型生成并保存代码（流式），AI 输出同时收集到调用方提供的累加器中
+     *
+     * @param userMessage     用户提示词
+     * @param codeGenTypeEnum 生成类型
+     * @param appId           应用ID
+     * @param response        响应累加器，由调用方创建和释放，流结束后可直接读取完整响应
+     * @return 流式响应
+     */
+    public Flux<String> generateAndSaveCodeStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum, Long appId,
+                                                  ResponseAccumulator response) {
         if (codeGenTypeEnum == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "生成类型不能为空");
         }
-        // 根据 appId 获取相应的 AI 服务实例
+        // 获取 AI 服务，同时预热该应用的对话记忆
         AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(appId);
-        return switch (codeGenTypeEnum) {
+        // 流式结构化输出（JSON）
+        boolean jsonStream = codeGenProperties.isJsonStream();
+        // 首轮对话命中提示词响应缓存时，模拟流式输出缓存的响应，不再调用大模型
+        boolean cacheable = !jsonStream && isResponseCacheable(appId);
+        String cachedResponse = cacheable ? getCachedResponse(userMessage, codeGenTypeEnum, appId) : null;
+        // 缓存的响应写入前已经过输出过滤
+        if (cachedResponse != null) {
+            return processCodeStream(promptResponseCache.replay(cachedResponse), codeGenTypeEnum, appId, response);
+        }
+        Flux<String> contentFlux = switch (codeGenTypeEnum) {
             case HTML -> {
-                Flux<String> codeStream = aiCodeGeneratorService.generateHtmlCodeStream(userMessage);
-                yield processCodeStream(codeStream, CodeGenTypeEnum.HTML, appId);
+                Flux<String> codeStream = jsonStream
+                        ? aiCodeGeneratorService.generateHtmlCodeJsonStream(appId, userMessage)
+                        : aiCodeGeneratorService.generateHtmlCodeStream(appId, userMessage);
+                yield processCodeStream(streamingSensitiveFilter.filter(codeStream, appId), CodeGenTypeEnum.HTML, appId, response);
             }
             case MULTI_FILE -> {
-                Flux<String> codeStream = aiCodeGeneratorService.generateMultiFileCodeStream(userMessage);
-                yield processCodeStream(codeStream, CodeGenTypeEnum.MULTI_FILE, appId);
+                Flux<String> codeStream = jsonStream
+                        ? aiCodeGeneratorService.generateMultiFileCodeJsonStream(appId, userMessage)
+                        : aiCodeGeneratorService.generateMultiFileCodeStream(appId, userMessage);
+                yield processCodeStream(streamingSensitiveFilter.filter(codeStream, appId), CodeGenTypeEnum.MULTI_FILE, appId, response);
             }
         };
+        if (cacheable) {
+            // 完整响应已收集在累加器中（后续的保存任务才会释放）
+            contentFlux = contentFlux.doOnComplete(() -> promptResponseCache.put(codeGenTypeEnum, userMessage, response.toString()));
+        }
+        // 对话记忆中新增了本轮消息，重新计算缓存权重
+        return contentFlux.doOnComplete(() -> postGenerationExecutor.execute("更新对话记忆权重", () ->
+                aiCodeGeneratorServiceFactory.refreshChatMemoryWeight(appId)));
+    }
+
+    /**
+     * 只有首轮对话（对话记忆中还没有 AI 回复）的结果与上下文无关，可以使用提示词响应缓存
+     *
+     * @param appId 应用ID
+     * @return 是否可以使用提示词响应缓存
+     */
+    private boolean isResponseCacheable(Long appId) {
+        return promptResponseCache.isEnabled() && !aiCodeGeneratorServiceFactory.hasAiReply(appId);
+    }
+
+    /**
+     * 查询提示词响应缓存，命中时将本轮对话写入对话记忆（不经过大模型，需要手动补上）
+     *
+     * @param userMessage     用户提示词
+     * @param codeGenTypeEnum 生成类型
+     * @param appId           应用ID
+     * @return 缓存的响应，未命中时为 null
+     */
+    private String getCachedResponse(String userMessage, CodeGenTypeEnum codeGenTypeEnum, Long appId) {
+        String cachedResponse = promptResponseCache.get(codeGenTypeEnum, userMessage);
+        if (cachedResponse != null) {
+            log.info("appId: {} 命中提示词响应缓存", appId);
+            aiCodeGeneratorServiceFactory.addToChatMemory(appId, UserMessage.from(userMessage), AiMessage.from(cachedResponse));
+        }
+        return cachedResponse;
     }
 
     /**
@@ -87,25 +178,142 @@ public class AiCodeGeneratorFacade {
      * @param codeStream  代码流
      * @param codeGenType 代码生成类型
      * @param appId       应用ID
+     * @param response    响应累加器
+     * @return 流式响应
+     */
+    private Flux<String> processCodeStream(Flux<String> codeStream, CodeGenTypeEnum codeGenType, Long appId,
+                                           ResponseAccumulator response) {
+        // 结构化输出时收集还原后的 Markdown（展示给用户的内容），而不是 JSON 原文
+        if (codeGenProperties.isJsonStream()) {
+            return Flux.defer(() -> processJsonCodeStream(codeStream, codeGenType, appId, response));
+        }
+        // 实时收集 AI 响应的内容（只保存一份，与对话历史共用）
+        Flux<String> collectedStream = codeStream.doOnNext(response::append);
+        // 每次订阅使用独立的解析状态
+        return Flux.defer(() -> {
+            if (codeGenProperties.isStreamSave()) {
+                return processCodeStreamWithStreamingSave(collectedStream, codeGenType, appId);
+            }
+            // 流式解析器：边接收边识别代码块，只记录代码块位置，结束后从累加器中截取
+            response.retain();
+            CodeResultCollector collector = new CodeResultCollector(codeGenType, response);
+            StreamingCodeParser parser = new StreamingCodeParser(collector);
+            // 保存任务开始后由保存任务释放，否则在流结束时释放
+            AtomicBoolean claimed = new AtomicBoolean();
+            // 流式返回完成后，在后处理线程池中解析并保存代码，保存完成后流才结束，前端收到结束事件时文件已就绪
+            Mono<String> save = postGenerationExecutor.submit("保存代码", () -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    parser.complete();
+                    Object parsedResult = collector.getResult();
+                    // 使用执行器保存代码
+                    File saveDir = CodeFileSaverExecutor.executeSaver(parsedResult, codeGenType, appId);
+                    log.info("保存成功，目录为：{}", saveDir.getAbsolutePath());
+                } catch (Exception e) {
+                    log.error("保存失败: {}", e.getMessage());
+                } finally {
+                    response.release();
+                }
+            }).then(Mono.empty());
+            return collectedStream.doOnNext(parser::append).concatWith(save).doFinally(signalType -> {
+                if (claimed.compareAndSet(false, true)) {
+                    response.release();
+                }
+            });
+        });
+    }
+
+    /**
+     * 流式保存：每个代码块闭合后立即写入文件
+     *
+     * @param codeStream  代码流
+     * @param codeGenType 代码生成类型
+     * @param appId       应用ID
      * @return 流式响应
      */
-    private Flux<String> processCodeStream(Flux<String> codeStream, CodeGenTypeEnum codeGenType, Long appId) {
-        // 字符串拼接器，用于当流式返回所有的代码之后，再保存代码
-        StringBuilder codeBuilder = new StringBuilder();
-        // 实时收集代码片段
-        return codeStream.doOnNext(codeBuilder::append).doOnComplete(() -> {
-            // 流式返回完成后，保存代码
+    private Flux<String> processCodeStreamWithStreamingSave(Flux<String> codeStream, CodeGenTypeEnum codeGenType, Long appId) {
+        StreamingCodeFileWriter writer = CodeFileSaverExecutor.openStreamingWriter(codeGenType, appId);
+        StreamingCodeParser parser = new StreamingCodeParser(writer);
+        return codeStream.doOnNext(parser::append)
+                .concatWith(completeStreamingSave(parser::complete, writer))
+                .doOnError(error -> writer.abort()).doOnCancel(writer::abort);
+    }
+
+    /**
+     * 流式结构化输出：边接收边解析 JSON，每个代码字段结束时立即写入文件
+     * 返回给前端的内容还原为 Markdown（描述 + 代码块），前端展示方式不变；
+     * 对话历史和对话记忆中保存的也是还原后的 Markdown
+     *
+     * @param codeStream  代码流（JSON 文本）
+     * @param codeGenType 代码生成类型
+     * @param appId       应用ID
+     * @param response    响应累加器
+     * @return 流式响应（Markdown）
+     */
+    private Flux<String> processJsonCodeStream(Flux<String> codeStream, CodeGenTypeEnum codeGenType, Long appId,
+                                               ResponseAccumulator response) {
+        StreamingCodeFileWriter writer = CodeFileSaverExecutor.openStreamingWriter(codeGenType, appId);
+        StringBuilder display = new StringBuilder();
+        StreamingJsonCodeParser parser = new StreamingJsonCodeParser(new CodeBlockListener() {
+            @Override
+            public void onText(CharSequence text) {
+                display.append(text).append("\n\n");
+            }
+
+            @Override
+            public void onBlockStart(CodeFileTypeEnum fileType, int offset) {
+                writer.onBlockStart(fileType, offset);
+                display.append("```").append(fileType.getValue()).append('\n');
+            }
+
+            @Override
+            public void onBlockContent(CodeFileTypeEnum fileType, CharSequence content) {
+                writer.onBlockContent(fileType, content);
+                display.append(content);
+            }
+
+            @Override
+            public void onBlockEnd(CodeFileTypeEnum fileType, int offset) {
+                writer.onBlockEnd(fileType, offset);
+                display.append("\n```\n\n");
+            }
+        });
+        return codeStream.<String>handle((chunk, sink) -> {
+            parser.append(chunk);
+            if (!display.isEmpty()) {
+                String markdown = display.toString();
+                display.setLength(0);
+                response.append(markdown);
+                sink.next(markdown);
+            }
+        }).concatWith(completeStreamingSave(parser::complete, writer))
+                .doOnComplete(() -> {
+                    // 大模型写入对话记忆的是 JSON 原文，替换为 Markdown
+                    String markdown = response.toString();
+                    postGenerationExecutor.execute("更新对话记忆", () ->
+                            aiCodeGeneratorServiceFactory.replaceLastAiMessage(appId, markdown));
+                })
+                .doOnError(error -> writer.abort()).doOnCancel(writer::abort);
+    }
+
+    /**
+     * 流式保存收尾：在后处理线程池中结束解析并等待文件写完，完成后流才结束，前端收到结束事件时文件已就绪
+     *
+     * @param completeParser 结束解析
+     * @param writer         流式写入器
+     * @return 不发出元素，保存完成时完成
+     */
+    private Mono<String> completeStreamingSave(Runnable completeParser, StreamingCodeFileWriter writer) {
+        return postGenerationExecutor.submit("保存代码", () -> {
             try {
-                String completeCode = codeBuilder.toString();
-                // 使用执行器解析代码
-                Object parsedResult = CodeParserExecutor.executeParser(completeCode, codeGenType);
-                // 使用执行器保存代码
-                File saveDir = CodeFileSaverExecutor.executeSaver(parsedResult, codeGenType, appId);
+                completeParser.run();
+                File saveDir = writer.complete();
                 log.info("保存成功，目录为：{}", saveDir.getAbsolutePath());
             } catch (Exception e) {
                 log.error("保存失败: {}", e.getMessage());
             }
-        });
+        }).then(Mono.empty());
     }
-
 }
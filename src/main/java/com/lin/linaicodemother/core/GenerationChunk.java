@@ -0,0 +1,12 @@
+package com.lin.linaicodemother.core;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/15 20:10
+ * @Descriptions 生成流中的一段内容
+ *
+ * @param index   在本次生成中的序号（从 0 开始递增），作为 SSE 事件 id，断线重连时据此续传
+ * @param content 内容
+ */
+public record GenerationChunk(long index, String content) {
+}
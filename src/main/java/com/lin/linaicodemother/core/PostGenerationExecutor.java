@@ -0,0 +1,152 @@
+package com.lin.linaicodemother.core;
+
+
+import com.lin.linaicodemother.config.CodeGenProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/8 20:26
+ * @Descriptions 生成后处理执行器
+ * 流式生成结束后的解析、保存文件、写入对话历史都是阻塞操作，
+ * 统一放到有界的虚拟线程池中执行，避免磁盘或数据库变慢时阻塞模型回调线程。
+ * 队列满或已关闭时拒绝任务（不在模型回调线程上执行，也不转到无界的线程池），但一定执行清理（释放累加器等）。
+ * 队列深度等指标通过 Micrometer 暴露（executor.queued{name=post_generation}），被拒绝的任务数为 post.generation.rejected。
+ */
+@Slf4j
+@Component
+public class PostGenerationExecutor {
+
+    private static final String EXECUTOR_NAME = "post_generation";
+
+    private final ThreadPoolExecutor executor;
+
+    private final CodeGenProperties.PostProcess config;
+
+    private final Counter queueFullRejections;
+
+    private final Counter shutdownRejections;
+
+    public PostGenerationExecutor(CodeGenProperties codeGenProperties, MeterRegistry meterRegistry) {
+        this.config = codeGenProperties.getPostProcess();
+        this.executor = new ThreadPoolExecutor(
+                config.getMaxConcurrency(),
+                config.getMaxConcurrency(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                Thread.ofVirtual().name("post-generation-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, EXECUTOR_NAME, Tags.empty()).bindTo(meterRegistry);
+        this.queueFullRejections = meterRegistry.counter("post.generation.rejected", "reason", "queue_full");
+        this.shutdownRejections = meterRegistry.counter("post.generation.rejected", "reason", "shutdown");
+    }
+
+    /**
+     * 提交一个后处理任务
+     *
+     * @param taskName 任务名称（用于日志）
+     * @param task     任务
+     */
+    public void execute(String taskName, Runnable task) {
+        execute(taskName, task, null);
+    }
+
+    /**
+     * 提交一个后处理任务，任务执行完成（或被拒绝）后一定会执行清理
+     *
+     * @param taskName 任务名称（用于日志）
+     * @param task     任务
+     * @param cleanup  清理，可以为 null
+     */
+    public void execute(String taskName, Runnable task, Runnable cleanup) {
+        dispatch(taskName, () -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("生成后处理任务 [{}] 执行失败: {}", taskName, e.getMessage(), e);
+            } finally {
+                runCleanup(taskName, cleanup);
+            }
+        }, () -> runCleanup(taskName, cleanup));
+    }
+
+    /**
+     * 在后处理线程池中执行任务，任务完成后返回的 Mono 才完成，用于需要在流结束前完成的处理（如保存文件）
+     *
+     * @param taskName 任务名称（用于日志）
+     * @param task     任务
+     * @return 任务完成时完成，任务抛出异常或被拒绝时出错（RejectedExecutionException）
+     */
+    public Mono<Void> submit(String taskName, Runnable task) {
+        return Mono.create(sink -> dispatch(taskName, () -> {
+            try {
+                task.run();
+                sink.success();
+            } catch (Exception e) {
+                sink.error(e);
+            }
+        }, () -> sink.error(new RejectedExecutionException("生成后处理任务 [" + taskName + "] 被拒绝"))));
+    }
+
+    /**
+     * 提交到线程池；队列满或线程池已关闭时拒绝并回调 onRejected
+     */
+    private void dispatch(String taskName, Runnable task, Runnable onRejected) {
+        if (!executor.isShutdown()) {
+            try {
+                executor.execute(task);
+                return;
+            } catch (RejectedExecutionException e) {
+                if (!executor.isShutdown()) {
+                    queueFullRejections.increment();
+                    log.error("生成后处理队列已满（{}），任务 [{}] 被拒绝", config.getQueueCapacity(), taskName);
+                    onRejected.run();
+                    return;
+                }
+            }
+        }
+        shutdownRejections.increment();
+        log.error("生成后处理执行器已关闭，任务 [{}] 被拒绝", taskName);
+        onRejected.run();
+    }
+
+    private static void runCleanup(String taskName, Runnable cleanup) {
+        if (cleanup == null) {
+            return;
+        }
+        try {
+            cleanup.run();
+        } catch (Exception e) {
+            log.error("生成后处理任务 [{}] 清理失败: {}", taskName, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 关闭时等待已提交的任务执行完成
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(config.getShutdownTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("生成后处理任务未能在 {} 内完成，剩余 {} 个", config.getShutdownTimeout(), executor.getQueue().size());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.lin.linaicodemother.core;
+
+
+import cn.hutool.core.io.resource.ResourceUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lin.linaicodemother.ai.embedding.HashingEmbeddingModel;
+import com.lin.linaicodemother.config.CodeGenProperties;
+import com.lin.linaicodemother.model.enums.CodeGenTypeEnum;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/18 20:15
+ * @Descriptions 提示词响应缓存
+ * 首轮对话（对话记忆中还没有 AI 回复）时，相同生成类型、相同提示词（规范化后）、相同系统提示词的生成结果可以直接复用，
+ * 命中时按配置的节奏模拟流式输出，后续解析、保存文件的流程与正常生成一致。
+ * 默认关闭，通过 code-gen.response-cache.enabled 开启。
+ * 开启 semantic 后，精确匹配未命中时再按提示词向量的余弦相似度查找换了说法的相近提示词（按生成类型分别建立索引），
+ * 候选提示词还要比较两者不同的部分，避免共用模板、关键词不同的提示词被误判为相同需求。
+ * 指标：cache.gets{cache=prompt_response, result=hit|miss}、cache.evictions、prompt.response.cache.semantic{result=hit|miss}。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PromptResponseCache {
+
+    /**
+     * 各生成类型的系统提示词，与 AiCodeGeneratorService 中的 @SystemMessage 保持一致
+     */
+    private static final Map<CodeGenTypeEnum, String> SYSTEM_PROMPT_RESOURCES = Map.of(
+            CodeGenTypeEnum.HTML, "prompt/codegen-html-system-prompt.txt",
+            CodeGenTypeEnum.MULTI_FILE, "prompt/codegen-multi-file-system-prompt.txt"
+    );
+
+    private final CodeGenProperties codeGenProperties;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 系统提示词摘要，系统提示词修改后旧的缓存自然失效
+     */
+    private final Map<CodeGenTypeEnum, String> systemPromptHashes = new EnumMap<>(CodeGenTypeEnum.class);
+
+    /**
+     * 缓存 key -> AI 完整响应
+     */
+    private Cache<String, String> responseCache;
+
+    /**
+     * 提示词向量模型，未开启相似匹配时为 null
+     */
+    private HashingEmbeddingModel embeddingModel;
+
+    /**
+     * 各生成类型的提示词向量索引
+     */
+    private final Map<CodeGenTypeEnum, SemanticPromptIndex> semanticIndexes = new EnumMap<>(CodeGenTypeEnum.class);
+
+    @PostConstruct
+    public void init() {
+        CodeGenProperties.ResponseCache config = codeGenProperties.getResponseCache();
+        if (!config.isEnabled()) {
+            return;
+        }
+        SYSTEM_PROMPT_RESOURCES.forEach((codeGenType, resource) ->
+                systemPromptHashes.put(codeGenType, DigestUtil.sha256Hex(ResourceUtil.readUtf8Str(resource))));
+        responseCache = Caffeine.newBuilder()
+                // 按字符计算权重（UTF-16 每个字符 2 字节）
+                .maximumWeight(config.getMaxSize().toBytes() / 2)
+                .weigher((String key, String value) -> value.length())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responseCache, "prompt_response");
+        CodeGenProperties.ResponseCache.Semantic semantic = config.getSemantic();
+        if (semantic.isEnabled()) {
+            embeddingModel = new HashingEmbeddingModel(semantic.getDimension());
+            for (CodeGenTypeEnum codeGenType : CodeGenTypeEnum.values()) {
+                semanticIndexes.put(codeGenType, new SemanticPromptIndex(semantic.getDimension(), semantic.getMaxEntries(),
+                        semantic.getMaxInsertedChars(), semantic.getMinSpanOverlap()));
+            }
+        }
+    }
+
+    /**
+     * 是否开启
+     */
+    public boolean isEnabled() {
+        return responseCache != null;
+    }
+
+    /**
+     * 查询缓存：先精确匹配，未命中时查找相似的提示词
+     *
+     * @param codeGenType 生成类型
+     * @param userMessage 用户提示词
+     * @return AI 完整响应，未命中时为 null
+     */
+    public String get(CodeGenTypeEnum codeGenType, String userMessage) {
+        String normalizedPrompt = normalize(userMessage);
+        String response = responseCache.getIfPresent(buildKey(codeGenType, normalizedPrompt));
+        if (response != null || embeddingModel == null) {
+            return response;
+        }
+        CodeGenProperties.ResponseCache.Semantic semantic = codeGenProperties.getResponseCache().getSemantic();
+        String similarKey = semanticIndexes.get(codeGenType)
+                .search(embeddingModel.embedVector(normalizedPrompt), normalizedPrompt, (float) semantic.getSimilarityThreshold());
+        // 相似提示词的响应可能已过期
+        response = similarKey == null ? null : responseCache.getIfPresent(similarKey);
+        meterRegistry.counter("prompt.response.cache.semantic", "result", response == null ? "miss" : "hit").increment();
+        if (response != null) {
+            log.info("提示词相似匹配命中，生成类型: {}", codeGenType.getValue());
+        }
+        return response;
+    }
+
+    /**
+     * 写入缓存，空响应不缓存
+     *
+     * @param codeGenType 生成类型
+     * @param userMessage 用户提示词
+     * @param response    AI 完整响应
+     */
+    public void put(CodeGenTypeEnum codeGenType, String userMessage, String response) {
+        if (response == null || response.isBlank()) {
+            return;
+        }
+        String normalizedPrompt = normalize(userMessage);
+        String key = buildKey(codeGenType, normalizedPrompt);
+        String previous = responseCache.asMap().put(key, response);
+        // 同一提示词只建一次索引
+        if (previous == null && embeddingModel != null) {
+            semanticIndexes.get(codeGenType).add(embeddingModel.embedVector(normalizedPrompt), normalizedPrompt, key);
+        }
+    }
+
+    /**
+     * 将缓存的响应按配置的节奏模拟为流式输出
+     *
+     * @param response AI 完整响应
+     * @return 模拟的响应流
+     */
+    public Flux<String> replay(String response) {
+        CodeGenProperties.ResponseCache config = codeGenProperties.getResponseCache();
+        int chunkSize = Math.max(1, config.getReplayChunkSize());
+        List<String> chunks = new ArrayList<>(response.length() / chunkSize + 1);
+        for (int i = 0; i < response.length(); i += chunkSize) {
+            chunks.add(response.substring(i, Math.min(response.length(), i + chunkSize)));
+        }
+        Flux<String> replay = Flux.fromIterable(chunks);
+        Duration interval = config.getReplayInterval();
+        return interval.isZero() || interval.isNegative() ? replay : replay.delayElements(interval);
+    }
+
+    /**
+     * 构造缓存 key：生成类型 + 系统提示词摘要 + 规范化后提示词的摘要
+     */
+    private String buildKey(CodeGenTypeEnum codeGenType, String normalizedPrompt) {
+        return codeGenType.getValue() + ":" + systemPromptHashes.get(codeGenType) + ":"
+                + DigestUtil.sha256Hex(normalizedPrompt.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 规范化提示词：去除首尾空白、合并连续空白、统一小写
+     */
+    private static String normalize(String userMessage) {
+        return userMessage.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
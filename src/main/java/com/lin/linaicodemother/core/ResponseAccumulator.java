@@ -0,0 +1,180 @@
+package com.lin.linaicodemother.core;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/6 20:48
+ * @Descriptions AI 响应累加器
+ * 按顺序保存流式返回的每个片段（片段本身是不可变的 String，不做复制），
+ * 对外提供零拷贝的 CharSequence 视图，供代码解析和对话历史保存共用，避免同一份响应在堆上存多份。
+ * 使用引用计数管理生命周期：创建者持有一个引用，其他使用方先 retain，用完后 release，计数归零时释放片段。
+ * append 只能在单个线程中调用（Reactor 保证 onNext 串行），读取需在流结束之后进行。
+ */
+public class ResponseAccumulator implements CharSequence {
+
+    private final List<String> segments = new ArrayList<>();
+
+    /**
+     * 每个片段在完整响应中的起始位置
+     */
+    private int[] offsets = new int[64];
+
+    private int length;
+
+    /**
+     * 最近一次访问的片段下标，顺序读取时避免每次都二分查找
+     */
+    private int lastSegment;
+
+    private final AtomicInteger refCount = new AtomicInteger(1);
+
+    /**
+     * 追加一个片段
+     *
+     * @param chunk 片段
+     */
+    public void append(String chunk) {
+        ensureNotReleased();
+        if (chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        int index = segments.size();
+        if (index == offsets.length) {
+            offsets = Arrays.copyOf(offsets, index * 2);
+        }
+        offsets[index] = length;
+        segments.add(chunk);
+        length += chunk.length();
+    }
+
+    /**
+     * 增加一个引用
+     *
+     * @return 当前累加器
+     */
+    public ResponseAccumulator retain() {
+        int count = refCount.getAndIncrement();
+        if (count <= 0) {
+            refCount.getAndDecrement();
+            throw new IllegalStateException("响应累加器已释放");
+        }
+        return this;
+    }
+
+    /**
+     * 释放一个引用，计数归零时清空所有片段
+     */
+    public void release() {
+        int count = refCount.decrementAndGet();
+        if (count == 0) {
+            segments.clear();
+            offsets = new int[0];
+            length = 0;
+        } else if (count < 0) {
+            throw new IllegalStateException("响应累加器重复释放");
+        }
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        Objects.checkIndex(index, length);
+        int segment = locate(index);
+        return segments.get(segment).charAt(index - offsets[segment]);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return substring(start, end);
+    }
+
+    /**
+     * 截取一段内容（只复制这一段）
+     *
+     * @param start 起始位置（包含）
+     * @param end   结束位置（不包含）
+     * @return 截取的字符串
+     */
+    public String substring(int start, int end) {
+        Objects.checkFromToIndex(start, end, length);
+        if (start == end) {
+            return "";
+        }
+        int segment = locate(start);
+        String first = segments.get(segment);
+        int from = start - offsets[segment];
+        // 在同一个片段内，直接截取
+        if (end - offsets[segment] <= first.length()) {
+            return first.substring(from, end - offsets[segment]);
+        }
+        StringBuilder builder = new StringBuilder(end - start);
+        int position = start;
+        while (position < end) {
+            String current = segments.get(segment);
+            int begin = position - offsets[segment];
+            int stop = Math.min(current.length(), end - offsets[segment]);
+            builder.append(current, begin, stop);
+            position += stop - begin;
+            segment++;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 拼接成完整字符串（只复制一次）
+     */
+    @Override
+    public String toString() {
+        ensureNotReleased();
+        if (segments.size() == 1) {
+            return segments.getFirst();
+        }
+        return String.join("", segments);
+    }
+
+    /**
+     * 查找下标所在的片段
+     */
+    private int locate(int index) {
+        int cached = lastSegment;
+        if (cached < segments.size() && index >= offsets[cached]) {
+            if (index < offsets[cached] + segments.get(cached).length()) {
+                return cached;
+            }
+            // 顺序读取时通常落在下一个片段
+            int next = cached + 1;
+            if (next < segments.size() && index < offsets[next] + segments.get(next).length()) {
+                lastSegment = next;
+                return next;
+            }
+        }
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        lastSegment = low;
+        return low;
+    }
+
+    private void ensureNotReleased() {
+        if (refCount.get() <= 0) {
+            throw new IllegalStateException("响应累加器已释放");
+        }
+    }
+}
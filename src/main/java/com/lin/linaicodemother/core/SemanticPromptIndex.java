@@ -0,0 +1,207 @@
+package com.lin.linaicodemother.core;
+
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/19 21:10
+ * @Descriptions 提示词向量索引
+ * 按余弦相似度查找最相近的历史提示词，向量需已归一化（点积即余弦相似度）。
+ * 字符哈希向量对共用大段模板、只有关键词不同的提示词（如“红色主题的博客”和“蓝色主题的商城”）相似度反而比换了说法的提示词更高，
+ * 因此相似度达标的候选还要比较两者不同的部分（去掉相同的前后缀）：
+ * - 只是增删了少量字词（如“帮我”“的”），增加的字符不超过 maxInsertedChars
+ * - 否则不同部分的字符集合重合度（Jaccard）不低于 minSpanOverlap：换了说法时用字大多相同，换了关键词时几乎不重合
+ * 条数有限（默认 1000），使用连续数组平铺暴力扫描；超过容量后覆盖最早的记录。
+ */
+public class SemanticPromptIndex {
+
+    private final int dimension;
+
+    private final int capacity;
+
+    private final int maxInsertedChars;
+
+    private final double minSpanOverlap;
+
+    /**
+     * 所有向量连续存放，第 i 条位于 [i * dimension, (i + 1) * dimension)
+     */
+    private final float[] vectors;
+
+    private final String[] keys;
+
+    /**
+     * 规范化后只保留字母、数字的提示词，用于字面校验
+     */
+    private final String[] prompts;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int size;
+
+    /**
+     * 下一条写入的位置（环形覆盖）
+     */
+    private int next;
+
+    public SemanticPromptIndex(int dimension, int capacity, int maxInsertedChars, double minSpanOverlap) {
+        this.dimension = dimension;
+        this.capacity = capacity;
+        this.maxInsertedChars = maxInsertedChars;
+        this.minSpanOverlap = minSpanOverlap;
+        this.vectors = new float[dimension * capacity];
+        this.keys = new String[capacity];
+        this.prompts = new String[capacity];
+    }
+
+    /**
+     * 添加一条记录
+     *
+     * @param vector 归一化向量
+     * @param prompt 提示词
+     * @param key    关联的缓存 key
+     */
+    public void add(float[] vector, String prompt, String key) {
+        String letters = lettersOf(prompt);
+        lock.writeLock().lock();
+        try {
+            System.arraycopy(vector, 0, vectors, next * dimension, dimension);
+            keys[next] = key;
+            prompts[next] = letters;
+            next = (next + 1) % capacity;
+            size = Math.min(size + 1, capacity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查找相似度不低于阈值、且不同部分校验通过的最相近记录
+     *
+     * @param vector    归一化向量
+     * @param prompt    提示词
+     * @param threshold 相似度阈值
+     * @return 关联的缓存 key，没有时为 null
+     */
+    public String search(float[] vector, String prompt, float threshold) {
+        String letters = lettersOf(prompt);
+        lock.readLock().lock();
+        try {
+            String bestKey = null;
+            float bestScore = threshold;
+            for (int i = 0; i < size; i++) {
+                float score = dot(vector, i * dimension);
+                if (score >= bestScore && isSameRequirement(letters, prompts[i])) {
+                    bestScore = score;
+                    bestKey = keys[i];
+                }
+            }
+            return bestKey;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 比较两个提示词不同的部分（去掉相同的前后缀）：只增删了少量字词，或者用字大多相同
+     *
+     * @param a 文本
+     * @param b 文本
+     * @return 是否视为相同需求
+     */
+    boolean isSameRequirement(String a, String b) {
+        int start = 0;
+        int limit = Math.min(a.length(), b.length());
+        while (start < limit && a.charAt(start) == b.charAt(start)) {
+            start++;
+        }
+        int endA = a.length();
+        int endB = b.length();
+        while (endA > start && endB > start && a.charAt(endA - 1) == b.charAt(endB - 1)) {
+            endA--;
+            endB--;
+        }
+        String spanA = a.substring(start, endA);
+        String spanB = b.substring(start, endB);
+        String shorter = spanA.length() <= spanB.length() ? spanA : spanB;
+        String longer = shorter == spanA ? spanB : spanA;
+        if (isSubsequence(shorter, longer)) {
+            return longer.length() - shorter.length() <= maxInsertedChars;
+        }
+        Set<Character> charsA = charsOf(spanA);
+        Set<Character> charsB = charsOf(spanB);
+        int union = charsA.size();
+        int intersection = 0;
+        for (Character c : charsB) {
+            if (charsA.contains(c)) {
+                intersection++;
+            } else {
+                union++;
+            }
+        }
+        return intersection >= minSpanOverlap * union;
+    }
+
+    private static boolean isSubsequence(String shorter, String longer) {
+        int matched = 0;
+        for (int i = 0; i < longer.length() && matched < shorter.length(); i++) {
+            if (longer.charAt(i) == shorter.charAt(matched)) {
+                matched++;
+            }
+        }
+        return matched == shorter.length();
+    }
+
+    private static Set<Character> charsOf(String text) {
+        Set<Character> chars = new HashSet<>();
+        for (int i = 0; i < text.length(); i++) {
+            chars.add(text.charAt(i));
+        }
+        return chars;
+    }
+
+    /**
+     * 只保留字母、数字（统一小写），忽略空白和标点的差异
+     */
+    private static String lettersOf(String prompt) {
+        StringBuilder builder = new StringBuilder(prompt.length());
+        for (int i = 0; i < prompt.length(); i++) {
+            char c = Character.toLowerCase(prompt.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 点积，四路累加便于 JIT 展开
+     */
+    private float dot(float[] vector, int offset) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < dimension; i += 4) {
+            s0 += vector[i] * vectors[offset + i];
+            s1 += vector[i + 1] * vectors[offset + i + 1];
+            s2 += vector[i + 2] * vectors[offset + i + 2];
+            s3 += vector[i + 3] * vectors[offset + i + 3];
+        }
+        for (; i < dimension; i++) {
+            s0 += vector[i] * vectors[offset + i];
+        }
+        return s0 + s1 + s2 + s3;
+    }
+}
@@ -0,0 +1,134 @@
+package com.lin.linaicodemother.core.deploy;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/27 20:20
+ * @Descriptions 内容寻址的文件存储
+ * 文件按 SHA-256 保存为 {root}/{哈希前两位}/{哈希}，内容相同的文件（不论属于哪个应用）只保存一份。
+ * 部署目录中的文件都是这里的硬链接，因此文件只读；硬链接数为 1 时说明已没有部署引用，可以删除。
+ * 文件系统不支持硬链接时退化为复制。
+ */
+public class BlobStore {
+
+    private static final String TEMP_PREFIX = ".tmp-";
+
+    private final Path root;
+
+    public BlobStore(Path root) throws IOException {
+        this.root = Files.createDirectories(root);
+    }
+
+    /**
+     * 计算文件的 SHA-256
+     */
+    public static String hash(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 保存文件：已有相同内容时不写入
+     *
+     * @param file 源文件
+     * @return 内容哈希
+     */
+    public String store(Path file) throws IOException {
+        String sha256 = hash(file);
+        if (contains(sha256)) {
+            return sha256;
+        }
+        // 边复制边计算哈希，以复制的内容为准（源文件可能在此期间被修改）
+        Path temp = Files.createTempFile(root, TEMP_PREFIX, null);
+        try {
+            MessageDigest digest = newDigest();
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                Files.copy(file, out);
+            }
+            sha256 = HexFormat.of().formatHex(digest.digest());
+            Path blob = path(sha256);
+            Files.createDirectories(blob.getParent());
+            temp.toFile().setReadOnly();
+            try {
+                Files.move(temp, blob, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // 其他部署同时保存了相同的内容
+            }
+            return sha256;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 是否已保存该内容
+     */
+    public boolean contains(String sha256) {
+        return Files.isRegularFile(path(sha256));
+    }
+
+    /**
+     * 在 target 处创建指向该内容的硬链接
+     */
+    public void link(String sha256, Path target) throws IOException {
+        Path blob = path(sha256);
+        try {
+            Files.createLink(target, blob);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            if (e instanceof FileAlreadyExistsException || !Files.exists(blob)) {
+                throw e;
+            }
+            Files.copy(blob, target);
+        }
+    }
+
+    /**
+     * 已没有部署引用时删除（硬链接数为 1）
+     */
+    public void release(String sha256) throws IOException {
+        Path blob = path(sha256);
+        try {
+            Object links = Files.getAttribute(blob, "unix:nlink");
+            if (links instanceof Integer count && count <= 1) {
+                Files.deleteIfExists(blob);
+            }
+        } catch (NoSuchFileException e) {
+            // 已删除
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            // 不支持查询硬链接数时保留
+        }
+    }
+
+    public Path path(String sha256) {
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
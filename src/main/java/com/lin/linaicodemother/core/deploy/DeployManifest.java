@@ -0,0 +1,92 @@
+package com.lin.linaicodemother.core.deploy;
+
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/27 20:10
+ * @Descriptions 部署清单：一次部署包含的文件及其内容哈希
+ * 每行一个文件：sha256 \t 大小 \t 源文件修改时间 \t 相对路径（/ 分隔）。
+ * 大小和修改时间用于再次部署时判断源文件是否变化，未变化的文件不再读取。
+ *
+ * @param entries 按相对路径排序的文件
+ */
+public record DeployManifest(List<Entry> entries) {
+
+    /**
+     * 清单中的文件
+     *
+     * @param path         相对路径（/ 分隔）
+     * @param sha256       内容哈希
+     * @param size         大小
+     * @param lastModified 源文件修改时间（毫秒）
+     */
+    public record Entry(String path, String sha256, long size, long lastModified) {
+    }
+
+    public static final DeployManifest EMPTY = new DeployManifest(List.of());
+
+    public DeployManifest {
+        entries = entries.stream().sorted(Comparator.comparing(Entry::path)).toList();
+    }
+
+    /**
+     * 快照 id：由所有文件的路径和内容哈希决定，内容相同的部署 id 相同
+     */
+    public String snapshotId() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Entry entry : entries) {
+                digest.update((entry.path() + '\0' + entry.sha256() + '\n').getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 按相对路径索引
+     */
+    public Map<String, Entry> byPath() {
+        return entries.stream().collect(Collectors.toMap(Entry::path, Function.identity()));
+    }
+
+    public void write(Path file) throws IOException {
+        List<String> lines = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            lines.add(entry.sha256() + '\t' + entry.size() + '\t' + entry.lastModified() + '\t' + entry.path());
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 读取清单，文件不存在时返回空清单
+     */
+    public static DeployManifest read(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return EMPTY;
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] parts = line.split("\t", 4);
+            if (parts.length == 4) {
+                entries.add(new Entry(parts[3], parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2])));
+            }
+        }
+        return new DeployManifest(entries);
+    }
+}
@@ -0,0 +1,56 @@
+package com.lin.linaicodemother.core.deploy;
+
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/28 20:20
+ * @Descriptions 部署版本：一个保留的快照
+ * 版本列表保存在 .snapshots/{deployKey}/versions 中，每行一个版本：快照 id \t 部署时间，最近部署的在前。
+ *
+ * @param id         快照 id
+ * @param deployedAt 部署时间（毫秒）
+ */
+public record DeployVersion(String id, long deployedAt) {
+
+    /**
+     * 读取版本列表，文件不存在时返回空列表
+     */
+    static List<DeployVersion> readAll(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return new ArrayList<>();
+        }
+        List<DeployVersion> versions = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] parts = line.split("\t", 2);
+            if (parts.length == 2) {
+                versions.add(new DeployVersion(parts[0], Long.parseLong(parts[1])));
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * 写入版本列表：先写临时文件再重命名，读取方不会读到写了一半的列表
+     */
+    static void writeAll(Path file, List<DeployVersion> versions) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (DeployVersion version : versions) {
+            builder.append(version.id()).append('\t').append(version.deployedAt()).append('\n');
+        }
+        Path temp = Files.createTempFile(file.getParent(), ".tmp-", null);
+        try {
+            Files.writeString(temp, builder, StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
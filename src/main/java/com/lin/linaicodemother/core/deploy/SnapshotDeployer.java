@@ -0,0 +1,374 @@
+package com.lin.linaicodemother.core.deploy;
+
+
+import com.lin.linaicodemother.config.DeployProperties;
+import com.lin.linaicodemother.constant.AppConstant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/27 20:40
+ * @Descriptions 快照部署
+ * 部署不再整目录复制，而是：
+ * 1. 源文件按内容保存到共享的 BlobStore（已有相同内容时不写入；大小和修改时间与上次部署相同的文件不再读取）
+ * 2. 按清单在 .snapshots/{deployKey}/{快照 id} 下用硬链接组装出只读快照，快照 id 由内容决定，内容不变时直接复用
+ * 3. 部署路径 {deployKey} 是指向快照的符号链接，新建临时链接后原子重命名覆盖，访问方不会看到部署到一半的站点
+ * 内容未变化的重新部署只需遍历文件元数据，不复制任何字节。不支持符号链接的文件系统（如部分 Windows 环境）退化为整目录复制。
+ * 每个应用保留最近几次部署的快照，回滚只需把部署路径重新指向其中一个快照，不复制文件。
+ */
+@Slf4j
+@Component
+public class SnapshotDeployer {
+
+    private static final String SNAPSHOTS_DIR = ".snapshots";
+
+    private static final String BLOBS_DIR = ".blobs";
+
+    private static final String MANIFEST_SUFFIX = ".manifest";
+
+    private static final String VERSIONS_FILE = "versions";
+
+    private static final String TEMP_PREFIX = ".tmp-";
+
+    private final Path deployRoot;
+
+    private final int retainedVersions;
+
+    private final BlobStore blobStore;
+
+    private final boolean symlinkSupported;
+
+    /**
+     * 同一 deployKey 的部署串行执行
+     */
+    private final Map<String, ReentrantLock> deployLocks = new ConcurrentHashMap<>();
+
+    /**
+     * 组装快照（读锁）与删除无引用的文件（写锁）互斥，避免刚确认存在的文件在链接前被删除
+     */
+    private final ReadWriteLock blobLock = new ReentrantReadWriteLock();
+
+    @Autowired
+    public SnapshotDeployer(DeployProperties properties) throws IOException {
+        this(Path.of(AppConstant.CODE_DEPLOY_ROOT_DIR), properties.getRetainedVersions());
+    }
+
+    public SnapshotDeployer(Path deployRoot, int retainedVersions) throws IOException {
+        this.deployRoot = Files.createDirectories(deployRoot).toAbsolutePath();
+        this.retainedVersions = Math.max(1, retainedVersions);
+        this.blobStore = new BlobStore(this.deployRoot.resolve(BLOBS_DIR));
+        this.symlinkSupported = probeSymlink();
+        if (!symlinkSupported) {
+            log.warn("部署目录 {} 不支持符号链接，部署时整目录复制", this.deployRoot);
+        }
+    }
+
+    /**
+     * 部署
+     *
+     * @param sourceDir 应用代码目录
+     * @param deployKey 部署 key
+     * @return 部署路径
+     */
+    public Path deploy(Path sourceDir, String deployKey) throws IOException {
+        Path deployPath = deployRoot.resolve(deployKey);
+        ReentrantLock lock = deployLocks.computeIfAbsent(deployKey, key -> new ReentrantLock());
+        lock.lock();
+        try {
+            if (!symlinkSupported) {
+                copyDeploy(sourceDir, deployPath);
+                return deployPath;
+            }
+            Path snapshotsDir = Files.createDirectories(deployRoot.resolve(SNAPSHOTS_DIR).resolve(deployKey));
+            String currentId = currentSnapshotId(deployPath);
+            DeployManifest current = currentId != null
+                    ? DeployManifest.read(snapshotsDir.resolve(currentId + MANIFEST_SUFFIX))
+                    : DeployManifest.EMPTY;
+            String snapshotId;
+            blobLock.readLock().lock();
+            try {
+                DeployManifest manifest = buildManifest(sourceDir, current);
+                snapshotId = manifest.snapshotId();
+                if (!snapshotId.equals(currentId)) {
+                    createSnapshot(snapshotsDir, snapshotId, manifest);
+                }
+            } finally {
+                blobLock.readLock().unlock();
+            }
+            List<DeployVersion> versions = readVersions(snapshotsDir, currentId);
+            if (!snapshotId.equals(currentId)) {
+                publish(deployPath, snapshotsDir.resolve(snapshotId));
+                log.info("部署 {} 切换到快照 {}", deployKey, snapshotId);
+                // 与已保留的某个版本内容相同时，移到最前面
+                versions.removeIf(version -> version.id().equals(snapshotId));
+                versions.addFirst(new DeployVersion(snapshotId, System.currentTimeMillis()));
+                if (versions.size() > retainedVersions) {
+                    versions = new ArrayList<>(versions.subList(0, retainedVersions));
+                }
+                DeployVersion.writeAll(snapshotsDir.resolve(VERSIONS_FILE), versions);
+            }
+            removeStaleSnapshots(snapshotsDir, versions);
+            return deployPath;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 回滚到保留的某个版本
+     *
+     * @param deployKey 部署 key
+     * @param versionId 版本（快照 id），为空时回滚到当前版本的上一个版本
+     * @return 回滚到的版本，版本不存在（或不支持版本管理）时返回 null
+     */
+    public DeployVersion rollback(String deployKey, String versionId) throws IOException {
+        if (!symlinkSupported) {
+            return null;
+        }
+        Path deployPath = deployRoot.resolve(deployKey);
+        ReentrantLock lock = deployLocks.computeIfAbsent(deployKey, key -> new ReentrantLock());
+        lock.lock();
+        try {
+            Path snapshotsDir = deployRoot.resolve(SNAPSHOTS_DIR).resolve(deployKey);
+            String currentId = currentSnapshotId(deployPath);
+            List<DeployVersion> versions = readVersions(snapshotsDir, currentId);
+            DeployVersion target = null;
+            if (versionId == null) {
+                // 列表按部署时间倒序，当前版本之后的就是上一个版本
+                for (int i = 0; i < versions.size() - 1; i++) {
+                    if (versions.get(i).id().equals(currentId)) {
+                        target = versions.get(i + 1);
+                        break;
+                    }
+                }
+            } else {
+                target = versions.stream().filter(version -> version.id().equals(versionId)).findFirst().orElse(null);
+            }
+            if (target == null || !Files.isDirectory(snapshotsDir.resolve(target.id()))) {
+                return null;
+            }
+            if (!target.id().equals(currentId)) {
+                publish(deployPath, snapshotsDir.resolve(target.id()));
+                log.info("部署 {} 回滚到快照 {}", deployKey, target.id());
+            }
+            return target;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 保留的部署版本，最近部署的在前
+     *
+     * @param deployKey 部署 key
+     * @return 版本列表，不支持版本管理时返回空列表
+     */
+    public List<DeployVersion> listVersions(String deployKey) throws IOException {
+        if (!symlinkSupported) {
+            return List.of();
+        }
+        Path snapshotsDir = deployRoot.resolve(SNAPSHOTS_DIR).resolve(deployKey);
+        return readVersions(snapshotsDir, currentVersion(deployKey));
+    }
+
+    /**
+     * 当前发布的版本（快照 id）
+     *
+     * @param deployKey 部署 key
+     * @return 快照 id，未部署或不支持版本管理时返回 null
+     */
+    public String currentVersion(String deployKey) throws IOException {
+        return currentSnapshotId(deployRoot.resolve(deployKey));
+    }
+
+    /**
+     * 生成源目录的清单：大小和修改时间与当前清单一致且内容仍在存储中的文件直接复用哈希
+     */
+    private DeployManifest buildManifest(Path sourceDir, DeployManifest current) throws IOException {
+        Map<String, DeployManifest.Entry> previous = current.byPath();
+        List<DeployManifest.Entry> entries = new ArrayList<>();
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(sourceDir)) {
+            files = stream.filter(Files::isRegularFile).toList();
+        }
+        for (Path file : files) {
+            String path = sourceDir.relativize(file).toString().replace('\\', '/');
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            long size = attributes.size();
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            DeployManifest.Entry entry = previous.get(path);
+            String sha256 = entry != null && entry.size() == size && entry.lastModified() == lastModified
+                    && blobStore.contains(entry.sha256())
+                    ? entry.sha256()
+                    : blobStore.store(file);
+            entries.add(new DeployManifest.Entry(path, sha256, size, lastModified));
+        }
+        return new DeployManifest(entries);
+    }
+
+    /**
+     * 在临时目录中用硬链接组装快照，完成后重命名为快照目录
+     */
+    private void createSnapshot(Path snapshotsDir, String snapshotId, DeployManifest manifest) throws IOException {
+        Path snapshot = snapshotsDir.resolve(snapshotId);
+        if (Files.isDirectory(snapshot)) {
+            // 内容与之前的某个快照相同
+            return;
+        }
+        Path temp = Files.createTempDirectory(snapshotsDir, TEMP_PREFIX);
+        try {
+            for (DeployManifest.Entry entry : manifest.entries()) {
+                Path target = temp.resolve(entry.path());
+                Files.createDirectories(target.getParent());
+                blobStore.link(entry.sha256(), target);
+            }
+            manifest.write(snapshotsDir.resolve(snapshotId + MANIFEST_SUFFIX));
+            Files.move(temp, snapshot, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            if (Files.exists(temp)) {
+                deleteTree(temp);
+            }
+        }
+    }
+
+    /**
+     * 原子地将部署路径指向快照：新建临时符号链接，再重命名覆盖。
+     * 部署路径还是改版前复制部署的目录时（只在首次切换时出现），先把目录重命名到一边，链接换上之后再删除；
+     * 换链接失败时把目录移回原处，原部署仍然可以访问
+     */
+    private void publish(Path deployPath, Path snapshot) throws IOException {
+        Path link = deployRoot.resolve(TEMP_PREFIX + deployPath.getFileName() + "-" + System.nanoTime());
+        Files.createSymbolicLink(link, deployRoot.relativize(snapshot));
+        try {
+            if (!Files.isDirectory(deployPath, LinkOption.NOFOLLOW_LINKS)) {
+                Files.move(link, deployPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                return;
+            }
+            Path legacy = deployRoot.resolve(TEMP_PREFIX + deployPath.getFileName() + "-legacy-" + System.nanoTime());
+            Files.move(deployPath, legacy, StandardCopyOption.ATOMIC_MOVE);
+            try {
+                Files.move(link, deployPath, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException e) {
+                Files.move(legacy, deployPath, StandardCopyOption.ATOMIC_MOVE);
+                throw e;
+            }
+            deleteTree(legacy);
+        } finally {
+            Files.deleteIfExists(link);
+        }
+    }
+
+    /**
+     * 读取版本列表；由改版前的部署升级上来、还没有版本列表时，把当前快照作为唯一的版本
+     */
+    private static List<DeployVersion> readVersions(Path snapshotsDir, String currentId) throws IOException {
+        List<DeployVersion> versions = DeployVersion.readAll(snapshotsDir.resolve(VERSIONS_FILE));
+        if (currentId != null && versions.stream().noneMatch(version -> version.id().equals(currentId))) {
+            Path snapshot = snapshotsDir.resolve(currentId);
+            long deployedAt = Files.exists(snapshot) ? Files.getLastModifiedTime(snapshot).toMillis() : System.currentTimeMillis();
+            versions.addFirst(new DeployVersion(currentId, deployedAt));
+        }
+        return versions;
+    }
+
+    /**
+     * 删除保留版本以外的快照，以及因此不再被引用的文件
+     */
+    private void removeStaleSnapshots(Path snapshotsDir, List<DeployVersion> retained) throws IOException {
+        Set<String> retainedIds = new HashSet<>();
+        retained.forEach(version -> retainedIds.add(version.id()));
+        List<Path> stale;
+        try (Stream<Path> stream = Files.list(snapshotsDir)) {
+            stale = stream.filter(path -> Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS))
+                    .filter(path -> !retainedIds.contains(path.getFileName().toString()))
+                    .toList();
+        }
+        if (stale.isEmpty()) {
+            return;
+        }
+        Set<String> released = new HashSet<>();
+        for (Path snapshot : stale) {
+            Path manifestFile = snapshotsDir.resolve(snapshot.getFileName() + MANIFEST_SUFFIX);
+            DeployManifest.read(manifestFile).entries().forEach(entry -> released.add(entry.sha256()));
+            deleteTree(snapshot);
+            Files.deleteIfExists(manifestFile);
+        }
+        blobLock.writeLock().lock();
+        try {
+            for (String sha256 : released) {
+                blobStore.release(sha256);
+            }
+        } finally {
+            blobLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 部署路径当前指向的快照 id，不是符号链接时返回 null
+     */
+    private static String currentSnapshotId(Path deployPath) throws IOException {
+        if (!Files.isSymbolicLink(deployPath)) {
+            return null;
+        }
+        return Files.readSymbolicLink(deployPath).getFileName().toString();
+    }
+
+    /**
+     * 不支持符号链接时的部署方式：整目录复制
+     */
+    private static void copyDeploy(Path sourceDir, Path deployPath) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(sourceDir)) {
+            files = stream.filter(Files::isRegularFile).toList();
+        }
+        for (Path file : files) {
+            Path target = deployPath.resolve(sourceDir.relativize(file));
+            Files.createDirectories(target.getParent());
+            Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private boolean probeSymlink() {
+        Path probe = deployRoot.resolve(TEMP_PREFIX + "symlink-probe-" + System.nanoTime());
+        try {
+            Files.createSymbolicLink(probe, Path.of(BLOBS_DIR));
+            return true;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            return false;
+        } finally {
+            try {
+                Files.deleteIfExists(probe);
+            } catch (IOException ignored) {
+                // 忽略
+            }
+        }
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        try (Stream<Path> stream = Files.walk(dir)) {
+            for (Path path : stream.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.lin.linaicodemother.core.parser;
+
+
+import com.lin.linaicodemother.model.enums.CodeFileTypeEnum;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/2 20:31
+ * @Descriptions 流式代码解析事件监听器
+ * 由 StreamingCodeParser 在识别到代码块边界时回调
+ */
+public interface CodeBlockListener {
+
+    /**
+     * 代码块之外的文本（包括无法识别语言的代码块）
+     *
+     * @param text 文本片段
+     */
+    default void onText(CharSequence text) {
+    }
+
+    /**
+     * 代码块开始
+     *
+     * @param fileType 代码块类型
+     * @param offset   代码块内容在完整响应中的起始位置
+     */
+    default void onBlockStart(CodeFileTypeEnum fileType, int offset) {
+    }
+
+    /**
+     * 代码块内容片段，同一个代码块可能回调多次
+     *
+     * @param fileType 代码块类型
+     * @param content  内容片段（仅在回调期间有效，需要保留请自行复制）
+     */
+    default void onBlockContent(CodeFileTypeEnum fileType, CharSequence content) {
+    }
+
+    /**
+     * 代码块结束（遇到闭合的 ``` 或者流结束）
+     *
+     * @param fileType 代码块类型
+     * @param offset   代码块内容在完整响应中的结束位置（不包含）
+     */
+    default void onBlockEnd(CodeFileTypeEnum fileType, int offset) {
+    }
+}
@@ -0,0 +1,215 @@
+package com.lin.linaicodemother.core.parser;
+
+
+import com.lin.linaicodemother.model.enums.CodeFileTypeEnum;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/16 20:40
+ * @Descriptions 代码块栅栏扫描器
+ * 一次线性扫描找出完整响应中所有闭合的 ```lang 代码块，同一语言可以有任意多个。
+ * 结果只记录偏移量，内容以原始文本上的 CharSequence 视图返回，需要 String 时才复制一次。
+ * 识别规则与原来的 "```html\s*\n([\s\S]*?)```" 正则保持一致：
+ * - 语言标识紧跟 ```，之后只能是空白，并且至少包含一个换行
+ * - 内容到下一个 ``` 为止，未闭合的代码块不计入结果
+ * - 闭合栅栏后面紧跟语言标识时，同时视为下一个代码块的开始
+ */
+public final class CodeFenceScanner {
+
+    private static final char TICK = '`';
+
+    private static final int FENCE_LENGTH = 3;
+
+    private CodeFenceScanner() {
+    }
+
+    /**
+     * 扫描所有闭合的代码块
+     *
+     * @param source 完整响应
+     * @return 按出现顺序排列的代码块
+     */
+    public static List<CodeFence> scan(CharSequence source) {
+        List<CodeFence> fences = new ArrayList<>();
+        // 无语言标识的栅栏不能与上一个闭合栅栏重叠（否则闭合栅栏会被当成新的开始）
+        int untaggedFrom = 0;
+        int i = indexOfFence(source, 0);
+        while (i >= 0) {
+            int tagEnd = readTag(source, i + FENCE_LENGTH);
+            int contentStart = readHeader(source, tagEnd);
+            boolean tagged = tagEnd > i + FENCE_LENGTH;
+            if (contentStart < 0 || (!tagged && i < untaggedFrom)) {
+                // 不是代码块的开始，从下一个字符继续找
+                i = indexOfFence(source, i + 1);
+                continue;
+            }
+            int contentEnd = indexOfFence(source, contentStart);
+            if (contentEnd < 0) {
+                // 未闭合
+                break;
+            }
+            fences.add(new CodeFence(source, i + FENCE_LENGTH, tagEnd, contentStart, contentEnd));
+            untaggedFrom = contentEnd + FENCE_LENGTH;
+            i = contentEnd;
+        }
+        return fences;
+    }
+
+    /**
+     * 获取第一个指定类型的代码块
+     *
+     * @param source 完整响应
+     * @param type   代码文件类型
+     * @return 代码块，不存在时返回 null
+     */
+    public static CodeFence findFirst(CharSequence source, CodeFileTypeEnum type) {
+        for (CodeFence fence : scan(source)) {
+            if (fence.fileType() == type) {
+                return fence;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 去掉首尾空白（与 String.trim 规则相同），返回视图，不复制
+     *
+     * @param text 文本
+     * @return 去掉首尾空白后的视图
+     */
+    public static CharSequence trim(CharSequence text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return start == 0 && end == text.length() ? text : text.subSequence(start, end);
+    }
+
+    /**
+     * 从 from 开始查找 ```
+     */
+    private static int indexOfFence(CharSequence source, int from) {
+        if (source instanceof String string) {
+            return string.indexOf("```", from);
+        }
+        int ticks = 0;
+        for (int i = from, length = source.length(); i < length; i++) {
+            if (source.charAt(i) != TICK) {
+                ticks = 0;
+            } else if (++ticks == FENCE_LENGTH) {
+                return i - FENCE_LENGTH + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 读取语言标识（连续的非空白、非反引号字符）
+     *
+     * @return 语言标识结束位置
+     */
+    private static int readTag(CharSequence source, int from) {
+        int i = from;
+        for (int length = source.length(); i < length; i++) {
+            char c = source.charAt(i);
+            if (c == TICK || isWhitespace(c)) {
+                break;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * 读取语言标识之后的空白，内容从其中最后一个换行之后开始
+     *
+     * @return 内容开始位置，不是合法的栅栏头时返回 -1
+     */
+    private static int readHeader(CharSequence source, int from) {
+        int contentStart = -1;
+        for (int i = from, length = source.length(); i < length; i++) {
+            char c = source.charAt(i);
+            if (c == '\n') {
+                contentStart = i + 1;
+            } else if (!isWhitespace(c)) {
+                break;
+            }
+        }
+        return contentStart;
+    }
+
+    /**
+     * 与正则 \s 相同的空白字符
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * 代码块，只记录在原始文本中的位置
+     *
+     * @param source       原始文本
+     * @param tagStart     语言标识开始位置
+     * @param tagEnd       语言标识结束位置（不含）
+     * @param contentStart 内容开始位置
+     * @param contentEnd   内容结束位置（不含，即闭合栅栏的位置）
+     */
+    public record CodeFence(CharSequence source, int tagStart, int tagEnd, int contentStart, int contentEnd) {
+
+        /**
+         * 语言标识，没有时为空串
+         */
+        public String language() {
+            return source.subSequence(tagStart, tagEnd).toString();
+        }
+
+        /**
+         * 代码文件类型（忽略大小写，javascript 视为 js），无法识别时返回 null
+         */
+        public CodeFileTypeEnum fileType() {
+            if (tagEquals("javascript")) {
+                return CodeFileTypeEnum.JS;
+            }
+            for (CodeFileTypeEnum type : CodeFileTypeEnum.values()) {
+                if (tagEquals(type.getValue())) {
+                    return type;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * 代码块内容的视图
+         */
+        public CharSequence content() {
+            return CharBuffer.wrap(source, contentStart, contentEnd);
+        }
+
+        /**
+         * 去掉首尾空白后的代码块内容视图
+         */
+        public CharSequence trimmedContent() {
+            return trim(content());
+        }
+
+        private boolean tagEquals(String tag) {
+            if (tag.length() != tagEnd - tagStart) {
+                return false;
+            }
+            for (int i = 0; i < tag.length(); i++) {
+                char c = source.charAt(tagStart + i);
+                if (Character.toLowerCase(c) != Character.toLowerCase(tag.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
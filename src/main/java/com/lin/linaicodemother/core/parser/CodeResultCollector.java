@@ -0,0 +1,92 @@
+package com.lin.linaicodemother.core.parser;
+
+
+import cn.hutool.core.text.CharSequenceUtil;
+import com.lin.linaicodemother.ai.model.HtmlCodeResult;
+import com.lin.linaicodemother.ai.model.MultiFileCodeResult;
+import com.lin.linaicodemother.core.ResponseAccumulator;
+import com.lin.linaicodemother.model.enums.CodeFileTypeEnum;
+import com.lin.linaicodemother.model.enums.CodeGenTypeEnum;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/2 21:10
+ * @Descriptions 代码结果收集器
+ * 配合 StreamingCodeParser 使用，只记录每种文件第一个非空代码块在完整响应中的位置，
+ * 内容本身保存在共享的 ResponseAccumulator 中，流结束后再截取并组装成 HtmlCodeResult 或 MultiFileCodeResult
+ */
+public class CodeResultCollector implements CodeBlockListener {
+
+    private final CodeGenTypeEnum codeGenType;
+
+    /**
+     * 完整响应（与解析器接收到的内容一致）
+     */
+    private final ResponseAccumulator response;
+
+    /**
+     * 已经收集完成的代码
+     */
+    private final Map<CodeFileTypeEnum, String> codeMap = new EnumMap<>(CodeFileTypeEnum.class);
+
+    /**
+     * 当前代码块内容的起始位置，-1 表示当前代码块不需要收集
+     */
+    private int blockStart = -1;
+
+    public CodeResultCollector(CodeGenTypeEnum codeGenType, ResponseAccumulator response) {
+        this.codeGenType = codeGenType;
+        this.response = response;
+    }
+
+    @Override
+    public void onBlockStart(CodeFileTypeEnum fileType, int offset) {
+        blockStart = isAccepted(fileType) && !codeMap.containsKey(fileType) ? offset : -1;
+    }
+
+    @Override
+    public void onBlockEnd(CodeFileTypeEnum fileType, int offset) {
+        if (blockStart < 0) {
+            return;
+        }
+        String code = CharSequenceUtil.trim(response.substring(blockStart, offset));
+        blockStart = -1;
+        if (CharSequenceUtil.isNotBlank(code)) {
+            codeMap.put(fileType, code);
+        }
+    }
+
+    /**
+     * 获取解析结果，需在 StreamingCodeParser#complete 之后调用
+     *
+     * @return 解析结果（HtmlCodeResult 或 MultiFileCodeResult）
+     */
+    public Object getResult() {
+        return switch (codeGenType) {
+            case HTML -> {
+                HtmlCodeResult result = new HtmlCodeResult();
+                String htmlCode = codeMap.get(CodeFileTypeEnum.HTML);
+                // 如果没有找到代码块，将整个内容作为HTML
+                result.setHtmlCode(htmlCode != null ? htmlCode : CharSequenceUtil.trim(response));
+                yield result;
+            }
+            case MULTI_FILE -> {
+                MultiFileCodeResult result = new MultiFileCodeResult();
+                result.setHtmlCode(codeMap.get(CodeFileTypeEnum.HTML));
+                result.setCssCode(codeMap.get(CodeFileTypeEnum.CSS));
+                result.setJsCode(codeMap.get(CodeFileTypeEnum.JS));
+                yield result;
+            }
+        };
+    }
+
+    /**
+     * 当前生成类型是否需要该文件
+     */
+    private boolean isAccepted(CodeFileTypeEnum fileType) {
+        return codeGenType == CodeGenTypeEnum.MULTI_FILE || fileType == CodeFileTypeEnum.HTML;
+    }
+}
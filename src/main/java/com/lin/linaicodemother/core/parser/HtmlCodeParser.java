@@ -2,9 +2,7 @@ package com.lin.linaicodemother.core.parser;
 
 
 import com.lin.linaicodemother.ai.model.HtmlCodeResult;
-
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import com.lin.linaicodemother.model.enums.CodeFileTypeEnum;
 
 
 /**
@@ -14,15 +12,13 @@ import java.util.regex.Pattern;
  */
 public class HtmlCodeParser implements CodeParser<HtmlCodeResult> {
 
-    private static final Pattern HTML_CODE_PATTERN = Pattern.compile("```html\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
-
     @Override
     public HtmlCodeResult parseCode(String codeContent) {
         HtmlCodeResult result = new HtmlCodeResult();
-        // 提取 HTML 代码
-        String htmlCode = extractHtmlCode(codeContent);
-        if (htmlCode != null && !htmlCode.trim().isEmpty()) {
-            result.setHtmlCode(htmlCode.trim());
+        // 提取 HTML 代码（视图，去掉首尾空白后只复制一次）
+        CharSequence htmlCode = extractHtmlCode(codeContent);
+        if (htmlCode != null && !htmlCode.isEmpty()) {
+            result.setHtmlCode(htmlCode.toString());
         } else {
             // 如果没有找到代码块，将整个内容作为HTML
             result.setHtmlCode(codeContent.trim());
@@ -34,13 +30,10 @@ public class HtmlCodeParser implements CodeParser<HtmlCodeResult> {
      * 提取HTML代码内容
      *
      * @param content 原始内容
-     * @return HTML代码
+     * @return 去掉首尾空白的HTML代码
      */
-    private static String extractHtmlCode(String content) {
-        Matcher matcher = HTML_CODE_PATTERN.matcher(content);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return null;
+    private static CharSequence extractHtmlCode(String content) {
+        CodeFenceScanner.CodeFence fence = CodeFenceScanner.findFirst(content, CodeFileTypeEnum.HTML);
+        return fence != null ? fence.trimmedContent() : null;
     }
 }
@@ -2,55 +2,39 @@ package com.lin.linaicodemother.core.parser;
 
 
 import com.lin.linaicodemother.ai.model.MultiFileCodeResult;
+import com.lin.linaicodemother.model.enums.CodeFileTypeEnum;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * @Author Lin
  * @Date 2026/1/12 20:58
  * @Descriptions 多文件代码解析器（HTML + CSS + JS）
+ * 一次扫描取出全部代码块，每种类型取第一个
  */
 public class MultiFileCodeParser implements CodeParser<MultiFileCodeResult> {
 
-    private static final Pattern HTML_CODE_PATTERN = Pattern.compile("```html\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
-    private static final Pattern CSS_CODE_PATTERN = Pattern.compile("```css\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
-    private static final Pattern JS_CODE_PATTERN = Pattern.compile("```(?:js|javascript)\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
-
     @Override
     public MultiFileCodeResult parseCode(String codeContent) {
         MultiFileCodeResult result = new MultiFileCodeResult();
-        // 提取各类代码
-        String htmlCode = extractCodeByPattern(codeContent, HTML_CODE_PATTERN);
-        String cssCode = extractCodeByPattern(codeContent, CSS_CODE_PATTERN);
-        String jsCode = extractCodeByPattern(codeContent, JS_CODE_PATTERN);
-        // 设置HTML代码
-        if (htmlCode != null && !htmlCode.trim().isEmpty()) {
-            result.setHtmlCode(htmlCode.trim());
-        }
-        // 设置CSS代码
-        if (cssCode != null && !cssCode.trim().isEmpty()) {
-            result.setCssCode(cssCode.trim());
-        }
-        // 设置JS代码
-        if (jsCode != null && !jsCode.trim().isEmpty()) {
-            result.setJsCode(jsCode.trim());
+        Set<CodeFileTypeEnum> seen = EnumSet.noneOf(CodeFileTypeEnum.class);
+        for (CodeFenceScanner.CodeFence fence : CodeFenceScanner.scan(codeContent)) {
+            CodeFileTypeEnum type = fence.fileType();
+            // 同类型只取第一个代码块（为空时不再往后找）
+            if (type == null || !seen.add(type)) {
+                continue;
+            }
+            CharSequence code = fence.trimmedContent();
+            if (code.isEmpty()) {
+                continue;
+            }
+            switch (type) {
+                case HTML -> result.setHtmlCode(code.toString());
+                case CSS -> result.setCssCode(code.toString());
+                case JS -> result.setJsCode(code.toString());
+            }
         }
         return result;
     }
-
-    /**
-     * 根据正则模式提取代码
-     *
-     * @param content 原始内容
-     * @param pattern 正则模式
-     * @return 提取的代码
-     */
-    private static String extractCodeByPattern(String content, Pattern pattern) {
-        Matcher matcher = pattern.matcher(content);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return null;
-    }
 }
@@ -0,0 +1,217 @@
+package com.lin.linaicodemother.core.parser;
+
+
+import com.lin.linaicodemother.model.enums.CodeFileTypeEnum;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/2 20:35
+ * @Descriptions 流式代码解析器
+ * 按块推送 AI 输出，边接收边识别 ```html / ```css / ```js 代码块边界，
+ * 通过 CodeBlockListener 下发事件，自身不保存完整响应。
+ * 非线程安全，一次生成使用一个实例。
+ */
+public class StreamingCodeParser {
+
+    /**
+     * 代码块栅栏：```
+     */
+    private static final String FENCE = "```";
+
+    /**
+     * 栅栏头（语言标识）最大长度，超过则认为不是代码块
+     */
+    private static final int MAX_HEADER_LENGTH = 32;
+
+    private enum State {
+        /**
+         * 代码块之外
+         */
+        TEXT,
+        /**
+         * 读取 ``` 之后的语言标识
+         */
+        HEADER,
+        /**
+         * 代码块内部
+         */
+        BLOCK
+    }
+
+    private final CodeBlockListener listener;
+
+    private State state = State.TEXT;
+
+    /**
+     * 当前代码块类型，语言无法识别时为 null（内容按普通文本处理）
+     */
+    private CodeFileTypeEnum blockType;
+
+    /**
+     * 连续反引号的个数（可能跨越多个 chunk）
+     */
+    private int ticks;
+
+    /**
+     * 栅栏头
+     */
+    private final StringBuilder header = new StringBuilder();
+
+    /**
+     * 当前 chunk 中待下发的片段，复用避免频繁分配
+     */
+    private final StringBuilder segment = new StringBuilder();
+
+    /**
+     * 已消费的字符总数
+     */
+    private int position;
+
+    private boolean completed;
+
+    public StreamingCodeParser(CodeBlockListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 推送一段 AI 输出
+     *
+     * @param chunk 输出片段
+     */
+    public void append(CharSequence chunk) {
+        if (completed) {
+            throw new IllegalStateException("解析器已结束");
+        }
+        if (chunk == null) {
+            return;
+        }
+        for (int i = 0, len = chunk.length(); i < len; i++) {
+            accept(chunk.charAt(i));
+            position++;
+        }
+        flushSegment();
+    }
+
+    /**
+     * 输出结束，处理未闭合的代码块
+     */
+    public void complete() {
+        if (completed) {
+            return;
+        }
+        completed = true;
+        appendPendingTicks();
+        if (state == State.HEADER) {
+            // 只有 ``` 没有换行，按普通文本处理
+            segment.append(FENCE).append(header);
+            state = State.TEXT;
+        }
+        flushSegment();
+        if (state == State.BLOCK && blockType != null) {
+            // 输出被截断（如达到 max-tokens），已收到的内容仍视为一个完整代码块
+            listener.onBlockEnd(blockType, position);
+        }
+        state = State.TEXT;
+        blockType = null;
+    }
+
+    /**
+     * 已消费的字符总数
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    private void accept(char c) {
+        switch (state) {
+            case TEXT -> {
+                if (c == '`') {
+                    if (++ticks == FENCE.length()) {
+                        flushSegment();
+                        ticks = 0;
+                        header.setLength(0);
+                        state = State.HEADER;
+                    }
+                } else {
+                    appendPendingTicks();
+                    segment.append(c);
+                }
+            }
+            case HEADER -> {
+                if (c == '\n') {
+                    openBlock();
+                } else if (header.length() >= MAX_HEADER_LENGTH) {
+                    // 不是代码块，退回普通文本
+                    segment.append(FENCE).append(header).append(c);
+                    state = State.TEXT;
+                } else {
+                    header.append(c);
+                }
+            }
+            case BLOCK -> {
+                if (c == '`') {
+                    if (++ticks == FENCE.length()) {
+                        closeBlock();
+                    }
+                } else {
+                    appendPendingTicks();
+                    segment.append(c);
+                }
+            }
+        }
+    }
+
+    /**
+     * 栅栏头读取完毕，进入代码块
+     */
+    private void openBlock() {
+        blockType = CodeFileTypeEnum.getEnumByFenceTag(header.toString().trim());
+        state = State.BLOCK;
+        if (blockType != null) {
+            // 代码块内容从换行之后开始
+            listener.onBlockStart(blockType, position + 1);
+        } else {
+            segment.append(FENCE).append(header).append('\n');
+        }
+    }
+
+    /**
+     * 遇到闭合的 ```，结束当前代码块
+     */
+    private void closeBlock() {
+        flushSegment();
+        ticks = 0;
+        if (blockType != null) {
+            // 当前字符是闭合栅栏的最后一个反引号
+            listener.onBlockEnd(blockType, position - FENCE.length() + 1);
+        } else {
+            segment.append(FENCE);
+        }
+        blockType = null;
+        state = State.TEXT;
+    }
+
+    /**
+     * 不足三个的反引号属于正文
+     */
+    private void appendPendingTicks() {
+        for (; ticks > 0; ticks--) {
+            segment.append('`');
+        }
+    }
+
+    /**
+     * 下发当前片段
+     */
+    private void flushSegment() {
+        if (segment.isEmpty()) {
+            return;
+        }
+        if (state == State.BLOCK && blockType != null) {
+            listener.onBlockContent(blockType, segment);
+        } else {
+            listener.onText(segment);
+        }
+        segment.setLength(0);
+    }
+}
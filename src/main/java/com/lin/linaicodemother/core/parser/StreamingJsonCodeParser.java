@@ -0,0 +1,281 @@
+package com.lin.linaicodemother.core.parser;
+
+
+import com.lin.linaicodemother.exception.BusinessException;
+import com.lin.linaicodemother.exception.ErrorCode;
+import com.lin.linaicodemother.model.enums.CodeFileTypeEnum;
+
+import java.util.Map;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/21 20:20
+ * @Descriptions 流式 JSON 代码解析器
+ * 用于结构化输出的流式生成：AI 输出 {"description": "...", "htmlCode": "...", "cssCode": "...", "jsCode": "..."}，
+ * 逐字符的状态机边接收边解析（对象层级、字段名、字符串及转义），代码字段的字符串一开始就回调代码块开始，
+ * 之后每段输出中解码出的内容立即回调，字符串闭合时回调代码块结束；description 字段闭合时作为普通文本回调。
+ * 只处理最外层对象的字段，嵌套的对象、数组及其他类型的值跳过。JSON 前后的内容（如模型多输出的 ```json）会被忽略。
+ * 事件中的位置参数固定为 -1（内容直接在事件中给出，不需要从完整响应中截取）。
+ */
+public class StreamingJsonCodeParser {
+
+    /**
+     * JSON 字段 -> 代码文件类型
+     */
+    private static final Map<String, CodeFileTypeEnum> CODE_FIELDS = Map.of(
+            "htmlCode", CodeFileTypeEnum.HTML,
+            "cssCode", CodeFileTypeEnum.CSS,
+            "jsCode", CodeFileTypeEnum.JS
+    );
+
+    private static final String DESCRIPTION_FIELD = "description";
+
+    private enum State {
+        /**
+         * 等待最外层的 {
+         */
+        BEFORE_OBJECT,
+        /**
+         * 字符串之外（结构字符、数字、true/false/null）
+         */
+        STRUCTURE,
+        /**
+         * 字符串中
+         */
+        STRING,
+        /**
+         * 字符串中的 \ 之后
+         */
+        ESCAPE,
+        /**
+         * \\u 之后的 4 位十六进制
+         */
+        UNICODE,
+        /**
+         * 最外层对象已经结束
+         */
+        FINISHED
+    }
+
+    /**
+     * 当前字符串的用途
+     */
+    private enum Target {
+        /**
+         * 最外层对象的字段名
+         */
+        FIELD_NAME,
+        /**
+         * 代码字段的值，解码出的内容立即回调
+         */
+        CODE,
+        /**
+         * description 字段的值，闭合时回调
+         */
+        DESCRIPTION,
+        /**
+         * 其他字符串，只解析不回调
+         */
+        IGNORED
+    }
+
+    private final CodeBlockListener listener;
+
+    private State state = State.BEFORE_OBJECT;
+
+    private Target target;
+
+    /**
+     * 对象、数组的嵌套层级，最外层对象内为 1
+     */
+    private int depth;
+
+    /**
+     * 最外层对象中下一个字符串是否为字段名（遇到 { 或 , 后为 true，遇到 : 后为 false）
+     */
+    private boolean expectFieldName;
+
+    private String currentField;
+
+    private CodeFileTypeEnum currentBlock;
+
+    /**
+     * 字段名、description 的内容
+     */
+    private final StringBuilder buffer = new StringBuilder();
+
+    /**
+     * 本段输出中解码出的代码内容
+     */
+    private final StringBuilder content = new StringBuilder();
+
+    private int unicodeValue;
+
+    private int unicodeDigits;
+
+    public StreamingJsonCodeParser(CodeBlockListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 追加一段 AI 输出
+     *
+     * @param chunk 输出片段
+     */
+    public void append(CharSequence chunk) {
+        for (int i = 0, len = chunk.length(); i < len && state != State.FINISHED; i++) {
+            accept(chunk.charAt(i));
+        }
+        flushContent();
+    }
+
+    /**
+     * 输出结束：输出被截断（如达到 max-tokens）时，未闭合代码字段已收到的内容仍视为一个完整代码块，其他未闭合的字段丢弃
+     */
+    public void complete() {
+        if (state == State.FINISHED) {
+            return;
+        }
+        flushContent(true);
+        if (currentBlock != null) {
+            listener.onBlockEnd(currentBlock, -1);
+            currentBlock = null;
+        }
+        state = State.FINISHED;
+    }
+
+    private void accept(char c) {
+        switch (state) {
+            case BEFORE_OBJECT -> {
+                if (c == '{') {
+                    depth = 1;
+                    expectFieldName = true;
+                    state = State.STRUCTURE;
+                }
+            }
+            case STRUCTURE -> acceptStructure(c);
+            case STRING -> {
+                if (c == '"') {
+                    endString();
+                } else if (c == '\\') {
+                    state = State.ESCAPE;
+                } else {
+                    emit(c);
+                }
+            }
+            case ESCAPE -> acceptEscape(c);
+            case UNICODE -> {
+                int digit = Character.digit(c, 16);
+                if (digit < 0) {
+                    throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI 输出的 JSON 格式错误：无效的 \\u 转义");
+                }
+                unicodeValue = (unicodeValue << 4) | digit;
+                if (++unicodeDigits == 4) {
+                    emit((char) unicodeValue);
+                    state = State.STRING;
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void acceptStructure(char c) {
+        switch (c) {
+            case '"' -> startString();
+            case '{', '[' -> depth++;
+            case '}', ']' -> {
+                if (--depth == 0) {
+                    // 最外层对象结束，之后的内容不再解析
+                    state = State.FINISHED;
+                }
+            }
+            case ',' -> expectFieldName = depth == 1;
+            case ':' -> expectFieldName = false;
+            default -> {
+            }
+        }
+    }
+
+    private void acceptEscape(char c) {
+        state = State.STRING;
+        switch (c) {
+            case '"', '\\', '/' -> emit(c);
+            case 'b' -> emit('\b');
+            case 'f' -> emit('\f');
+            case 'n' -> emit('\n');
+            case 'r' -> emit('\r');
+            case 't' -> emit('\t');
+            case 'u' -> {
+                unicodeValue = 0;
+                unicodeDigits = 0;
+                state = State.UNICODE;
+            }
+            default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI 输出的 JSON 格式错误：无效的转义字符 \\" + c);
+        }
+    }
+
+    private void startString() {
+        state = State.STRING;
+        buffer.setLength(0);
+        if (depth != 1) {
+            target = Target.IGNORED;
+        } else if (expectFieldName) {
+            target = Target.FIELD_NAME;
+        } else if (CODE_FIELDS.containsKey(currentField)) {
+            target = Target.CODE;
+            currentBlock = CODE_FIELDS.get(currentField);
+            listener.onBlockStart(currentBlock, -1);
+        } else if (DESCRIPTION_FIELD.equals(currentField)) {
+            target = Target.DESCRIPTION;
+        } else {
+            target = Target.IGNORED;
+        }
+    }
+
+    private void endString() {
+        state = State.STRUCTURE;
+        switch (target) {
+            case FIELD_NAME -> currentField = buffer.toString();
+            case CODE -> {
+                flushContent(true);
+                listener.onBlockEnd(currentBlock, -1);
+                currentBlock = null;
+            }
+            case DESCRIPTION -> listener.onText(buffer.toString());
+            default -> {
+            }
+        }
+        buffer.setLength(0);
+    }
+
+    private void emit(char c) {
+        switch (target) {
+            case CODE -> content.append(c);
+            case FIELD_NAME, DESCRIPTION -> buffer.append(c);
+            default -> {
+            }
+        }
+    }
+
+    private void flushContent() {
+        flushContent(false);
+    }
+
+    /**
+     * 回调已解码的代码内容
+     *
+     * @param all 为 false 时末尾未配对的高位代理字符留到下一段，避免把一个字符拆成两次回调
+     */
+    private void flushContent(boolean all) {
+        int length = content.length();
+        if (!all && length > 0 && Character.isHighSurrogate(content.charAt(length - 1))) {
+            length--;
+        }
+        if (length == 0 || currentBlock == null) {
+            return;
+        }
+        listener.onBlockContent(currentBlock, content.subSequence(0, length));
+        content.delete(0, length);
+    }
+}
@@ -33,4 +33,18 @@ public class CodeFileSaverExecutor {
             case MULTI_FILE -> multiFileCodeFileSaver.saveCode((MultiFileCodeResult) codeResult, appId);
         };
     }
+
+    /**
+     * 打开流式写入器（代码块闭合后立即保存）
+     *
+     * @param codeGenType 代码生成类型
+     * @param appId       应用ID
+     * @return 流式写入器
+     */
+    public static StreamingCodeFileWriter openStreamingWriter(CodeGenTypeEnum codeGenType, Long appId) {
+        return switch (codeGenType) {
+            case HTML -> htmlCodeFileSaver.openStreamingWriter(appId);
+            case MULTI_FILE -> multiFileCodeFileSaver.openStreamingWriter(appId);
+        };
+    }
 }
@@ -6,10 +6,12 @@ import cn.hutool.core.text.CharSequenceUtil;
 import com.lin.linaicodemother.constant.AppConstant;
 import com.lin.linaicodemother.exception.ErrorCode;
 import com.lin.linaicodemother.exception.ThrowUtils;
+import com.lin.linaicodemother.model.enums.CodeFileTypeEnum;
 import com.lin.linaicodemother.model.enums.CodeGenTypeEnum;
 
 import java.io.File;
 import java.nio.charset.StandardCharsets;
+import java.util.Set;
 
 /**
  * @Author Lin
@@ -41,6 +43,19 @@ public abstract class CodeFileSaverTemplate<T> {
         return new File(baseDirPath);
     }
 
+    /**
+     * 流式保存：返回一个配合 StreamingCodeParser 使用的写入器，
+     * 每个代码块闭合后立即写入对应文件，不必等待整个生成结束
+     *
+     * @param appId 应用ID
+     * @return 流式写入器
+     */
+    public final StreamingCodeFileWriter openStreamingWriter(Long appId) {
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.SYSTEM_ERROR, "应用ID不能为空");
+        String baseDirPath = buildUniqueDir(appId);
+        return new StreamingCodeFileWriter(baseDirPath, AppConstant.CODE_OUTPUT_TEMP_DIR, getCodeType(), getSupportedFileTypes());
+    }
+
     /**
      * 验证输入参数（可由子类覆盖）
      *
@@ -94,4 +109,11 @@ public abstract class CodeFileSaverTemplate<T> {
      * @return 代码生成类型枚举
      */
     protected abstract CodeGenTypeEnum getCodeType();
+
+    /**
+     * 获取需要保存的文件类型（流式保存时使用）
+     *
+     * @return 文件类型集合
+     */
+    protected abstract Set<CodeFileTypeEnum> getSupportedFileTypes();
 }
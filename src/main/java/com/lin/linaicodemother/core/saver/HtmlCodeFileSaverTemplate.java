@@ -5,8 +5,11 @@ import cn.hutool.core.text.CharSequenceUtil;
 import com.lin.linaicodemother.ai.model.HtmlCodeResult;
 import com.lin.linaicodemother.exception.BusinessException;
 import com.lin.linaicodemother.exception.ErrorCode;
+import com.lin.linaicodemother.model.enums.CodeFileTypeEnum;
 import com.lin.linaicodemother.model.enums.CodeGenTypeEnum;
 
+import java.util.Set;
+
 /**
  * @Author Lin
  * @Date 2026/1/12 21:19
@@ -24,6 +27,11 @@ public class HtmlCodeFileSaverTemplate extends CodeFileSaverTemplate<HtmlCodeRes
         return CodeGenTypeEnum.HTML;
     }
 
+    @Override
+    protected Set<CodeFileTypeEnum> getSupportedFileTypes() {
+        return Set.of(CodeFileTypeEnum.HTML);
+    }
+
     @Override
     protected void validateInput(HtmlCodeResult result, Long appId) {
         super.validateInput(result, appId);
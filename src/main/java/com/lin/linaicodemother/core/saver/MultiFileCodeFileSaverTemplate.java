@@ -5,8 +5,12 @@ import cn.hutool.core.text.CharSequenceUtil;
 import com.lin.linaicodemother.ai.model.MultiFileCodeResult;
 import com.lin.linaicodemother.exception.BusinessException;
 import com.lin.linaicodemother.exception.ErrorCode;
+import com.lin.linaicodemother.model.enums.CodeFileTypeEnum;
 import com.lin.linaicodemother.model.enums.CodeGenTypeEnum;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * @Author Lin
  * @Date 2026/1/12 21:21
@@ -39,6 +43,16 @@ public class MultiFileCodeFileSaverTemplate extends CodeFileSaverTemplate<MultiF
         return CodeGenTypeEnum.MULTI_FILE;
     }
 
+    /**
+     * 获取需要保存的文件类型
+     *
+     * @return HTML、CSS、JS 三个文件
+     */
+    @Override
+    protected Set<CodeFileTypeEnum> getSupportedFileTypes() {
+        return EnumSet.allOf(CodeFileTypeEnum.class);
+    }
+
     /**
      * 验证输入参数（可由子类覆盖）
      *
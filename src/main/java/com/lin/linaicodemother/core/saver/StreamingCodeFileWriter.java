@@ -0,0 +1,295 @@
+package com.lin.linaicodemother.core.saver;
+
+
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.util.CharUtil;
+import com.lin.linaicodemother.core.parser.CodeBlockListener;
+import com.lin.linaicodemother.exception.BusinessException;
+import com.lin.linaicodemother.exception.ErrorCode;
+import com.lin.linaicodemother.model.enums.CodeFileTypeEnum;
+import com.lin.linaicodemother.model.enums.CodeGenTypeEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/4 20:42
+ * @Descriptions 流式代码文件写入器
+ * 作为 StreamingCodeParser 的监听器使用：代码块开始时创建临时文件并追加写入，
+ * 代码块闭合后原子重命名为 index.html / style.css / script.js，无需等待整个生成结束。
+ * 与 CodeResultCollector 一致，每种文件只保存第一个非空代码块，并去除首尾空白。
+ * 回调只把事件交给本次生成独占的虚拟线程按顺序写盘，不在模型回调线程上做磁盘 I/O；
+ * 临时文件放在生成目录之外，预览和部署不会读到写了一半的文件。
+ */
+@Slf4j
+public class StreamingCodeFileWriter implements CodeBlockListener {
+
+    /**
+     * 临时文件后缀
+     */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final String baseDirPath;
+
+    private final Path tempDir;
+
+    private final CodeGenTypeEnum codeGenType;
+
+    /**
+     * 当前生成类型需要保存的文件
+     */
+    private final Set<CodeFileTypeEnum> supportedFileTypes;
+
+    /**
+     * 写盘线程，按回调顺序执行，以下字段只在该线程中访问
+     */
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("code-file-writer-", 0).factory());
+
+    /**
+     * 已经保存完成的文件
+     */
+    private final Set<CodeFileTypeEnum> savedFileTypes = EnumSet.noneOf(CodeFileTypeEnum.class);
+
+    /**
+     * 正在写入的临时文件，为 null 表示当前代码块不需要保存
+     */
+    private Path tempFile;
+
+    private Writer writer;
+
+    /**
+     * 是否还处于代码块开头（跳过开头的空白）
+     */
+    private boolean leading;
+
+    /**
+     * 暂存的空白字符，遇到非空白字符才写入，从而去掉末尾空白
+     */
+    private final StringBuilder pendingWhitespace = new StringBuilder();
+
+    /**
+     * HTML 模式下，没有找到 HTML 代码块时兜底使用的原始文本；找到后即释放
+     */
+    private StringBuilder fallback;
+
+    public StreamingCodeFileWriter(String baseDirPath, String tempDirPath, CodeGenTypeEnum codeGenType,
+                                   Set<CodeFileTypeEnum> supportedFileTypes) {
+        this.baseDirPath = baseDirPath;
+        this.tempDir = Path.of(tempDirPath);
+        this.codeGenType = codeGenType;
+        this.supportedFileTypes = supportedFileTypes;
+        if (codeGenType == CodeGenTypeEnum.HTML) {
+            this.fallback = new StringBuilder();
+        }
+    }
+
+    @Override
+    public void onText(CharSequence text) {
+        String copy = text.toString();
+        submit(() -> {
+            if (fallback != null) {
+                fallback.append(copy);
+            }
+        });
+    }
+
+    @Override
+    public void onBlockStart(CodeFileTypeEnum fileType, int offset) {
+        submit(() -> startBlock(fileType));
+    }
+
+    @Override
+    public void onBlockContent(CodeFileTypeEnum fileType, CharSequence content) {
+        String copy = content.toString();
+        submit(() -> writeContent(copy));
+    }
+
+    @Override
+    public void onBlockEnd(CodeFileTypeEnum fileType, int offset) {
+        submit(() -> endBlock(fileType));
+    }
+
+    /**
+     * 输出结束，需在 StreamingCodeParser#complete 之后调用，等待已提交的写入完成（会阻塞，不要在模型回调线程中调用）
+     *
+     * @return 保存的目录
+     */
+    public File complete() {
+        try {
+            return ioExecutor.submit(this::finish).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "保存代码文件失败：" + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "保存代码文件被中断");
+        } catch (RejectedExecutionException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "生成已中断，代码文件未保存");
+        } finally {
+            ioExecutor.shutdown();
+        }
+    }
+
+    /**
+     * 生成中断（出错或客户端取消），清理未完成的临时文件
+     */
+    public void abort() {
+        submit(() -> {
+            discardTempFile();
+            fallback = null;
+        });
+        ioExecutor.shutdown();
+    }
+
+    private void submit(Runnable task) {
+        try {
+            ioExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // 已经结束或中断，忽略之后的事件
+        }
+    }
+
+    private void startBlock(CodeFileTypeEnum fileType) {
+        if (!supportedFileTypes.contains(fileType) || savedFileTypes.contains(fileType)) {
+            return;
+        }
+        try {
+            Files.createDirectories(tempDir);
+            Path path = Files.createTempFile(tempDir, Path.of(baseDirPath).getFileName() + "-" + fileType.getFileName() + "-", TEMP_SUFFIX);
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+            tempFile = path;
+            leading = true;
+            pendingWhitespace.setLength(0);
+        } catch (IOException e) {
+            log.error("创建临时文件失败: {}, {}", tempDir, e.getMessage());
+        }
+    }
+
+    private void writeContent(String content) {
+        if (writer == null) {
+            if (fallback != null) {
+                fallback.append(content);
+            }
+            return;
+        }
+        try {
+            for (int i = 0, len = content.length(); i < len; i++) {
+                char c = content.charAt(i);
+                if (CharUtil.isBlankChar(c)) {
+                    if (!leading) {
+                        pendingWhitespace.append(c);
+                    }
+                    continue;
+                }
+                leading = false;
+                if (!pendingWhitespace.isEmpty()) {
+                    writer.append(pendingWhitespace);
+                    pendingWhitespace.setLength(0);
+                }
+                writer.append(c);
+            }
+        } catch (IOException e) {
+            log.error("写入临时文件失败: {}, {}", tempFile, e.getMessage());
+            discardTempFile();
+        }
+    }
+
+    private void endBlock(CodeFileTypeEnum fileType) {
+        if (writer == null) {
+            return;
+        }
+        // 只有空白的代码块不保存
+        boolean blank = leading;
+        Path path = tempFile;
+        Path target = Path.of(baseDirPath, fileType.getFileName());
+        try {
+            writer.close();
+            writer = null;
+            if (blank) {
+                discardTempFile();
+                return;
+            }
+            Files.move(path, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            tempFile = null;
+            savedFileTypes.add(fileType);
+            if (fileType == CodeFileTypeEnum.HTML) {
+                fallback = null;
+            }
+            log.info("代码块已保存：{}", target);
+        } catch (IOException e) {
+            log.error("保存代码文件失败: {}, {}", target, e.getMessage());
+            discardTempFile();
+        }
+    }
+
+    private File finish() {
+        if (!savedFileTypes.contains(CodeFileTypeEnum.HTML)) {
+            // HTML 模式下如果没有找到代码块，将整个内容作为HTML
+            String htmlCode = codeGenType == CodeGenTypeEnum.HTML ? CharSequenceUtil.trim(fallback) : null;
+            if (CharSequenceUtil.isBlank(htmlCode)) {
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "HTML代码内容不能为空");
+            }
+            writeAtomically(CodeFileTypeEnum.HTML, htmlCode);
+            fallback = null;
+        }
+        return new File(baseDirPath);
+    }
+
+    /**
+     * 一次性写入完整文件（先写临时文件再原子重命名）
+     */
+    private void writeAtomically(CodeFileTypeEnum fileType, String content) {
+        Path target = Path.of(baseDirPath, fileType.getFileName());
+        try {
+            Files.createDirectories(tempDir);
+            Path path = Files.createTempFile(tempDir, Path.of(baseDirPath).getFileName() + "-" + fileType.getFileName() + "-", TEMP_SUFFIX);
+            try {
+                Files.writeString(path, content, StandardCharsets.UTF_8);
+                Files.move(path, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(path);
+            }
+            savedFileTypes.add(fileType);
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "保存代码文件失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 关闭并删除当前临时文件
+     */
+    private void discardTempFile() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.warn("关闭临时文件失败: {}", e.getMessage());
+            }
+            writer = null;
+        }
+        if (tempFile != null) {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                log.warn("删除临时文件失败: {}", e.getMessage());
+            }
+            tempFile = null;
+        }
+    }
+}
@@ -0,0 +1,500 @@
+package com.lin.linaicodemother.core.sensitive;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/21 20:10
+ * @Descriptions 双数组 Aho-Corasick 自动机
+ * 构建后不可变，可以被多个线程同时使用：
+ * - 状态转移用 base/check 两个 int 数组表示（t = base[s] + code(c)，check[t] == s 时转移存在），只有数组访问，没有对象分配
+ * - 失败指针、输出链接（最近的带输出的后缀状态）同样是 int 数组
+ * - 匹配时忽略大小写、全角半角，字符一一对应，命中位置就是原文中的位置
+ * 扫描时通过 MatchHandler 回调返回（词序号、开始、结束），不为每次命中分配对象。
+ */
+public final class DoubleArrayAhoCorasick {
+
+    /**
+     * 根状态
+     */
+    public static final int ROOT = 0;
+
+    /**
+     * check 数组中空闲位置的标记
+     */
+    private static final int FREE = -1;
+
+    /**
+     * 字符 -> 字母表编码（从 1 开始，0 表示没有任何词包含该字符）
+     */
+    private final char[] codes;
+
+    private final int[] base;
+
+    private final int[] check;
+
+    private final int[] fail;
+
+    /**
+     * 在该状态结束的词的序号，没有时为 -1
+     */
+    private final int[] output;
+
+    /**
+     * 失败链上最近的带输出的状态，没有时为 -1
+     */
+    private final int[] outputLink;
+
+    /**
+     * 状态深度，即该状态对应的词前缀长度
+     */
+    private final int[] depths;
+
+    private final String[] words;
+
+    private final int[] wordLengths;
+
+    /**
+     * 最长词的长度
+     */
+    private final int maxWordLength;
+
+    /**
+     * 命中回调
+     */
+    @FunctionalInterface
+    public interface MatchHandler {
+
+        /**
+         * 命中一个词
+         *
+         * @param wordId 词序号，通过 word(wordId) 获取
+         * @param start  在原文中的开始位置
+         * @param end    在原文中的结束位置（不含）
+         * @return 是否继续扫描
+         */
+        boolean onMatch(int wordId, int start, int end);
+    }
+
+    private DoubleArrayAhoCorasick(Builder builder) {
+        this.codes = builder.codes;
+        this.base = Arrays.copyOf(builder.base, builder.size);
+        this.check = Arrays.copyOf(builder.check, builder.size);
+        this.fail = builder.fail;
+        this.output = builder.output;
+        this.outputLink = builder.outputLink;
+        this.depths = Arrays.copyOf(builder.depth, builder.size);
+        this.words = builder.words;
+        this.wordLengths = builder.wordLengths;
+        this.maxWordLength = builder.maxWordLength;
+    }
+
+    /**
+     * 构建自动机
+     *
+     * @param words 词列表（空白词忽略，忽略大小写、全角半角后重复的词只保留第一个）
+     * @return 自动机
+     */
+    public static DoubleArrayAhoCorasick build(Collection<String> words) {
+        return new Builder(words).build();
+    }
+
+    /**
+     * 扫描文本，按结束位置顺序回调所有命中（包括重叠的命中）
+     *
+     * @param text    文本
+     * @param handler 命中回调
+     */
+    public void scan(CharSequence text, MatchHandler handler) {
+        int state = ROOT;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            state = next(state, text.charAt(i));
+            if (!emit(state, i + 1, handler)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 文本中是否包含任意一个词
+     *
+     * @param text 文本
+     * @return 是否包含
+     */
+    public boolean matches(CharSequence text) {
+        int state = ROOT;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            state = next(state, text.charAt(i));
+            if (output[state] >= 0 || outputLink[state] >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 状态转移（流式扫描时由调用方保存状态）
+     *
+     * @param state 当前状态
+     * @param c     下一个字符
+     * @return 新状态
+     */
+    public int next(int state, char c) {
+        int code = codes[normalize(c)];
+        if (code == 0) {
+            // 没有任何词包含该字符
+            return ROOT;
+        }
+        int s = state;
+        while (true) {
+            int t = base[s] + code;
+            if (t < check.length && check[t] == s) {
+                return t;
+            }
+            if (s == ROOT) {
+                return ROOT;
+            }
+            s = fail[s];
+        }
+    }
+
+    /**
+     * 回调在某个状态结束的所有词
+     *
+     * @param state 状态
+     * @param end   当前位置（不含）
+     * @param handler 命中回调
+     * @return 是否继续扫描
+     */
+    public boolean emit(int state, int end, MatchHandler handler) {
+        int s = output[state] >= 0 ? state : outputLink[state];
+        while (s >= 0) {
+            int wordId = output[s];
+            if (!handler.onMatch(wordId, end - wordLengths[wordId], end)) {
+                return false;
+            }
+            s = outputLink[s];
+        }
+        return true;
+    }
+
+    /**
+     * 获取词
+     *
+     * @param wordId 词序号
+     * @return 词
+     */
+    public String word(int wordId) {
+        return words[wordId];
+    }
+
+    /**
+     * 词的数量
+     */
+    public int size() {
+        return words.length;
+    }
+
+    /**
+     * 最长词的长度（流式过滤时最多需要暂存的字符数）
+     */
+    public int maxWordLength() {
+        return maxWordLength;
+    }
+
+    /**
+     * 状态深度：到达该状态时已匹配的词前缀长度
+     * 之后的命中最多从倒数 depth 个字符开始，更早的字符不会再被命中（流式过滤据此决定可以放行的内容）
+     *
+     * @param state 状态
+     * @return 深度
+     */
+    public int depth(int state) {
+        return depths[state];
+    }
+
+    /**
+     * 忽略大小写、全角半角
+     */
+    static char normalize(char c) {
+        if (c >= '\uFF01' && c <= '\uFF5E') {
+            // 全角 ASCII
+            c = (char) (c - 0xFEE0);
+        } else if (c == '\u3000') {
+            c = ' ';
+        }
+        if (c < 128) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+        }
+        return Character.toLowerCase(c);
+    }
+
+    /**
+     * 构建器：词按编码排序后递归写入双数组，再按深度顺序计算失败指针
+     */
+    private static final class Builder {
+
+        private final char[] codes = new char[Character.MAX_VALUE + 1];
+
+        private final String[] words;
+
+        private final int[] wordLengths;
+
+        private final char[][] keys;
+
+        private int maxWordLength;
+
+        private int[] base = new int[1024];
+
+        private int[] check = new int[1024];
+
+        private int[] parent = new int[1024];
+
+        private int[] inCode = new int[1024];
+
+        private int[] depth = new int[1024];
+
+        private int[] wordAt = new int[1024];
+
+        private int[] fail;
+
+        private int[] output;
+
+        private int[] outputLink;
+
+        /**
+         * 已使用的数组长度
+         */
+        private int size = 1;
+
+        /**
+         * 空闲位置双向链表，加速查找 base
+         */
+        private int[] nextFree = new int[1024];
+
+        private int[] prevFree = new int[1024];
+
+        private Builder(Collection<String> source) {
+            // 规范化并去重（保留原词用于展示）
+            Map<String, String> normalized = new LinkedHashMap<>();
+            for (String word : source) {
+                if (word == null || word.isBlank()) {
+                    continue;
+                }
+                String trimmed = word.trim();
+                StringBuilder key = new StringBuilder(trimmed.length());
+                for (int i = 0; i < trimmed.length(); i++) {
+                    key.append(normalize(trimmed.charAt(i)));
+                }
+                normalized.putIfAbsent(key.toString(), trimmed);
+            }
+            // 分配字母表编码
+            char nextCode = 1;
+            for (String key : normalized.keySet()) {
+                for (int i = 0; i < key.length(); i++) {
+                    char c = key.charAt(i);
+                    if (codes[c] == 0) {
+                        codes[c] = nextCode++;
+                    }
+                }
+            }
+            // 按编码排序，同一前缀的词相邻
+            List<Map.Entry<String, String>> entries = new ArrayList<>(normalized.entrySet());
+            int count = entries.size();
+            char[][] encoded = new char[count][];
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                String key = entries.get(i).getKey();
+                encoded[i] = new char[key.length()];
+                for (int j = 0; j < key.length(); j++) {
+                    encoded[i][j] = codes[key.charAt(j)];
+                }
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Arrays.compare(encoded[a], encoded[b]));
+            this.words = new String[count];
+            this.wordLengths = new int[count];
+            this.keys = new char[count][];
+            for (int i = 0; i < count; i++) {
+                words[i] = entries.get(order[i]).getValue();
+                keys[i] = encoded[order[i]];
+                wordLengths[i] = keys[i].length;
+                maxWordLength = Math.max(maxWordLength, keys[i].length);
+            }
+        }
+
+        private DoubleArrayAhoCorasick build() {
+            Arrays.fill(check, FREE);
+            Arrays.fill(wordAt, -1);
+            check[ROOT] = ROOT - 2;
+            nextFree[ROOT] = ROOT;
+            prevFree[ROOT] = ROOT;
+            linkFree(ROOT + 1, check.length);
+            insert(ROOT, 0, 0, keys.length);
+            buildFailure();
+            return new DoubleArrayAhoCorasick(this);
+        }
+
+        /**
+         * 写入状态 state 的所有子状态，keys[lo, hi) 有相同的 depth 长度前缀
+         */
+        private void insert(int state, int prefixLength, int lo, int hi) {
+            if (lo < hi && keys[lo].length == prefixLength) {
+                // 排序后恰好等于前缀的词排在最前面
+                wordAt[state] = lo;
+                lo++;
+            }
+            if (lo >= hi) {
+                return;
+            }
+            // 按 prefixLength 位置的字符分组
+            List<int[]> children = new ArrayList<>();
+            int start = lo;
+            for (int i = lo + 1; i <= hi; i++) {
+                if (i == hi || keys[i][prefixLength] != keys[start][prefixLength]) {
+                    children.add(new int[]{keys[start][prefixLength], start, i});
+                    start = i;
+                }
+            }
+            int b = findBase(children);
+            base[state] = b;
+            for (int[] child : children) {
+                int t = b + child[0];
+                occupy(t, state);
+                parent[t] = state;
+                inCode[t] = child[0];
+                depth[t] = prefixLength + 1;
+                size = Math.max(size, t + 1);
+            }
+            for (int[] child : children) {
+                insert(b + child[0], prefixLength + 1, child[1], child[2]);
+            }
+        }
+
+        /**
+         * 找到能放下所有子状态的 base 值：只在空闲位置上尝试第一个子状态
+         */
+        private int findBase(List<int[]> children) {
+            int firstCode = children.getFirst()[0];
+            int lastCode = children.getLast()[0];
+            int pos = nextFree[ROOT];
+            while (true) {
+                if (pos == ROOT) {
+                    // 没有空闲位置了，扩容后从新的位置开始
+                    pos = check.length;
+                    ensureCapacity(check.length * 2);
+                }
+                int b = pos - firstCode;
+                if (b >= 1) {
+                    ensureCapacity(b + lastCode + 1);
+                    if (fits(b, children)) {
+                        return b;
+                    }
+                }
+                pos = nextFree[pos];
+            }
+        }
+
+        private boolean fits(int b, List<int[]> children) {
+            for (int[] child : children) {
+                if (check[b + child[0]] != FREE) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 占用一个位置，从空闲链表中移除
+         */
+        private void occupy(int t, int state) {
+            check[t] = state;
+            nextFree[prevFree[t]] = nextFree[t];
+            prevFree[nextFree[t]] = prevFree[t];
+        }
+
+        private void ensureCapacity(int capacity) {
+            int oldLength = check.length;
+            if (capacity <= oldLength) {
+                return;
+            }
+            int newLength = Math.max(capacity, oldLength * 2);
+            base = Arrays.copyOf(base, newLength);
+            check = Arrays.copyOf(check, newLength);
+            parent = Arrays.copyOf(parent, newLength);
+            inCode = Arrays.copyOf(inCode, newLength);
+            depth = Arrays.copyOf(depth, newLength);
+            wordAt = Arrays.copyOf(wordAt, newLength);
+            nextFree = Arrays.copyOf(nextFree, newLength);
+            prevFree = Arrays.copyOf(prevFree, newLength);
+            Arrays.fill(check, oldLength, newLength, FREE);
+            Arrays.fill(wordAt, oldLength, newLength, -1);
+            linkFree(oldLength, newLength);
+        }
+
+        /**
+         * 把 [from, to) 追加到空闲链表末尾（链表以根状态为哨兵，根状态始终被占用）
+         */
+        private void linkFree(int from, int to) {
+            for (int t = from; t < to; t++) {
+                int tail = prevFree[ROOT];
+                nextFree[tail] = t;
+                prevFree[t] = tail;
+                nextFree[t] = ROOT;
+                prevFree[ROOT] = t;
+            }
+        }
+
+        /**
+         * 按深度从小到大计算失败指针和输出链接
+         */
+        private void buildFailure() {
+            fail = new int[size];
+            output = Arrays.copyOf(wordAt, size);
+            outputLink = new int[size];
+            // 计数排序：按深度排列所有状态
+            int[] countByDepth = new int[maxWordLength + 2];
+            for (int t = 1; t < size; t++) {
+                if (check[t] >= 0) {
+                    countByDepth[depth[t] + 1]++;
+                }
+            }
+            for (int d = 1; d < countByDepth.length; d++) {
+                countByDepth[d] += countByDepth[d - 1];
+            }
+            int[] ordered = new int[countByDepth[countByDepth.length - 1]];
+            for (int t = 1; t < size; t++) {
+                if (check[t] >= 0) {
+                    ordered[countByDepth[depth[t]]++] = t;
+                }
+            }
+            outputLink[ROOT] = -1;
+            for (int t : ordered) {
+                int p = parent[t];
+                int f = ROOT;
+                if (p != ROOT) {
+                    f = fail[p];
+                    while (true) {
+                        int next = base[f] + inCode[t];
+                        if (next < size && check[next] == f) {
+                            f = next;
+                            break;
+                        }
+                        if (f == ROOT) {
+                            break;
+                        }
+                        f = fail[f];
+                    }
+                }
+                fail[t] = f;
+                outputLink[t] = output[f] >= 0 ? f : outputLink[f];
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.lin.linaicodemother.core.sensitive;
+
+
+import cn.hutool.core.lang.hash.MurmurHash;
+import cn.hutool.core.text.CharSequenceUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.houbb.sensitive.word.support.allow.WordAllows;
+import com.github.houbb.sensitive.word.support.deny.WordDenys;
+import com.lin.linaicodemother.config.SensitiveWordProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/21 21:00
+ * @Descriptions 敏感词检查
+ * 启动时把词库（sensitive-word 内置词库 + 本地词库文件）编译成不可变的双数组 Aho-Corasick 自动机，一次扫描找出所有敏感词；
+ * 本地词库文件变更后在后台重新构建，构建完成再整体替换，检查过程不加锁。
+ * 最近检查过的提示词按 128 位哈希缓存结果（LRU），重复提交同一提示词时不再扫描。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SensitiveWordScreener {
+
+    private final SensitiveWordProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private volatile DoubleArrayAhoCorasick automaton;
+
+    /**
+     * 提示词哈希 -> 命中的敏感词
+     */
+    private Cache<PromptKey, List<String>> resultCache;
+
+    private ScheduledExecutorService reloadExecutor;
+
+    /**
+     * 上次加载时本地词库文件的修改时间和大小，用于判断是否变更
+     */
+    private long wordFileModified = -1;
+
+    private long wordFileSize = -1;
+
+    /**
+     * 提示词的 128 位哈希与长度
+     */
+    private record PromptKey(long high, long low, int length) {
+    }
+
+    @PostConstruct
+    public void init() {
+        resultCache = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheSize())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, resultCache, "sensitive_word");
+        reload();
+        long interval = properties.getReloadInterval().toMillis();
+        if (interval > 0) {
+            reloadExecutor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("sensitive-word-reload").daemon(true).factory());
+            reloadExecutor.scheduleWithFixedDelay(this::reloadIfChanged, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (reloadExecutor != null) {
+            reloadExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 检查内容中的敏感词（带结果缓存）
+     *
+     * @param content 内容
+     * @return 命中的敏感词（去重，按出现顺序），没有时为空列表
+     */
+    public List<String> screen(String content) {
+        if (CharSequenceUtil.isBlank(content)) {
+            return List.of();
+        }
+        long[] hash = MurmurHash.hash128(content);
+        return resultCache.get(new PromptKey(hash[0], hash[1], content.length()), key -> findAll(content));
+    }
+
+    /**
+     * 扫描内容中的敏感词（不使用缓存）
+     *
+     * @param content 内容
+     * @return 命中的敏感词（去重，按出现顺序），没有时为空列表
+     */
+    public List<String> findAll(CharSequence content) {
+        DoubleArrayAhoCorasick current = automaton;
+        Set<String> found = new LinkedHashSet<>();
+        current.scan(content, (wordId, start, end) -> {
+            found.add(current.word(wordId));
+            return true;
+        });
+        return found.isEmpty() ? List.of() : List.copyOf(found);
+    }
+
+    /**
+     * 当前使用的自动机（不可变，可直接用于流式扫描）
+     */
+    public DoubleArrayAhoCorasick getAutomaton() {
+        return automaton;
+    }
+
+    /**
+     * 重新加载词库并构建自动机，失败时继续使用原来的自动机
+     */
+    public synchronized void reload() {
+        long start = System.nanoTime();
+        try {
+            List<String> words = new ArrayList<>();
+            Set<String> allows = new HashSet<>();
+            if (properties.isIncludeDefaultWords()) {
+                words.addAll(WordDenys.defaults().deny());
+                allows.addAll(WordAllows.defaults().allow());
+            }
+            readWordFile(words, allows);
+            words.removeAll(allows);
+            automaton = DoubleArrayAhoCorasick.build(words);
+            resultCache.invalidateAll();
+            log.info("敏感词库加载完成，共 {} 个词，耗时 {} ms", automaton.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            log.error("敏感词库加载失败，继续使用原词库: {}", e.getMessage(), e);
+            if (automaton == null) {
+                automaton = DoubleArrayAhoCorasick.build(List.of());
+            }
+        }
+    }
+
+    /**
+     * 本地词库文件变更时重新加载
+     */
+    private void reloadIfChanged() {
+        Path path = Path.of(properties.getWordFile());
+        try {
+            long modified = Files.exists(path) ? Files.getLastModifiedTime(path).toMillis() : -1;
+            long size = Files.exists(path) ? Files.size(path) : -1;
+            if (modified != wordFileModified || size != wordFileSize) {
+                log.info("本地敏感词库文件已变更，重新加载: {}", path);
+                reload();
+            }
+        } catch (IOException e) {
+            log.warn("检查本地敏感词库文件失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 读取本地词库文件
+     */
+    private void readWordFile(List<String> words, Set<String> allows) throws IOException {
+        Path path = Path.of(properties.getWordFile());
+        if (!Files.exists(path)) {
+            wordFileModified = -1;
+            wordFileSize = -1;
+            return;
+        }
+        wordFileModified = Files.getLastModifiedTime(path).toMillis();
+        wordFileSize = Files.size(path);
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            String word = line.trim();
+            if (word.isEmpty() || word.startsWith("#")) {
+                continue;
+            }
+            if (word.startsWith("!")) {
+                allows.add(word.substring(1).trim());
+            } else {
+                words.add(word);
+            }
+        }
+    }
+}
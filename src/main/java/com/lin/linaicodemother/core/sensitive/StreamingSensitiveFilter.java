@@ -0,0 +1,88 @@
+package com.lin.linaicodemother.core.sensitive;
+
+
+import com.lin.linaicodemother.config.SensitiveWordProperties;
+import com.lin.linaicodemother.config.SensitiveWordProperties.OutputFilterMode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/22 20:40
+ * @Descriptions AI 输出敏感词过滤
+ * 作为流水线中的一个阶段逐段扫描大模型输出，不等待完整响应：
+ * 每段的开销只与该段长度成正比，打码模式最多暂存最长敏感词长度的字符。
+ * 指标：ai.output.filter.chars（扫描字符数）、ai.output.filter.scan（每段耗时）、ai.output.filter.matches（命中次数）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StreamingSensitiveFilter {
+
+    private final SensitiveWordScreener sensitiveWordScreener;
+
+    private final SensitiveWordProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private Counter scannedChars;
+
+    private Timer scanTimer;
+
+    private Counter matches;
+
+    @PostConstruct
+    public void init() {
+        String mode = properties.getOutput().getMode().name().toLowerCase();
+        scannedChars = meterRegistry.counter("ai.output.filter.chars");
+        scanTimer = Timer.builder("ai.output.filter.scan")
+                .description("AI 输出每段的敏感词扫描耗时")
+                .register(meterRegistry);
+        matches = meterRegistry.counter("ai.output.filter.matches", "mode", mode);
+    }
+
+    /**
+     * 过滤输出流
+     *
+     * @param codeStream 大模型输出流
+     * @param appId      应用ID（用于日志）
+     * @return 过滤后的输出流
+     */
+    public Flux<String> filter(Flux<String> codeStream, Long appId) {
+        OutputFilterMode mode = properties.getOutput().getMode();
+        if (mode == OutputFilterMode.NONE) {
+            return codeStream;
+        }
+        // 每次订阅使用独立的匹配状态，开始时取当前词库的快照
+        return Flux.defer(() -> {
+            StreamingSensitiveMatcher matcher = new StreamingSensitiveMatcher(
+                    sensitiveWordScreener.getAutomaton(), mode == OutputFilterMode.MASK);
+            return codeStream.<String>handle((chunk, sink) -> {
+                        long start = System.nanoTime();
+                        int before = matcher.getMatchCount();
+                        String released = matcher.append(chunk);
+                        scanTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        scannedChars.increment(chunk.length());
+                        matches.increment(matcher.getMatchCount() - before);
+                        if (!released.isEmpty()) {
+                            sink.next(released);
+                        }
+                    })
+                    .concatWith(Mono.fromSupplier(matcher::complete).filter(rest -> !rest.isEmpty()))
+                    .doOnComplete(() -> {
+                        if (matcher.getMatchCount() > 0) {
+                            log.warn("appId: {} AI 输出命中敏感词 {} 次: {}", appId, matcher.getMatchCount(), matcher.getMatchedWords());
+                        }
+                    });
+        });
+    }
+}
@@ -0,0 +1,118 @@
+package com.lin.linaicodemother.core.sensitive;
+
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/22 20:15
+ * @Descriptions 流式敏感词匹配
+ * 逐段推送输出，自动机状态跨段保存，跨越两段的敏感词同样能被发现。
+ * - 标记模式：内容原样立即放行，只记录命中
+ * - 打码模式：命中的字符替换为 *；只暂存仍可能成为敏感词一部分的结尾字符（不超过最长词的长度），其余立即放行
+ * 非线程安全，一次生成使用一个实例。
+ */
+public class StreamingSensitiveMatcher {
+
+    private static final char MASK_CHAR = '*';
+
+    private final DoubleArrayAhoCorasick automaton;
+
+    private final boolean mask;
+
+    /**
+     * 打码模式下尚未放行的内容
+     */
+    private final StringBuilder pending = new StringBuilder();
+
+    /**
+     * 命中的敏感词（去重）
+     */
+    private final Set<String> matchedWords = new LinkedHashSet<>();
+
+    private final DoubleArrayAhoCorasick.MatchHandler handler;
+
+    private int state = DoubleArrayAhoCorasick.ROOT;
+
+    private int matchCount;
+
+    public StreamingSensitiveMatcher(DoubleArrayAhoCorasick automaton, boolean mask) {
+        this.automaton = automaton;
+        this.mask = mask;
+        this.handler = (wordId, start, end) -> {
+            matchCount++;
+            matchedWords.add(automaton.word(wordId));
+            if (mask) {
+                for (int i = start; i < end; i++) {
+                    pending.setCharAt(i, MASK_CHAR);
+                }
+            }
+            return true;
+        };
+    }
+
+    /**
+     * 推送一段输出
+     *
+     * @param chunk 输出片段
+     * @return 可以放行的内容（可能为空串）
+     */
+    public String append(String chunk) {
+        if (!mask) {
+            // 标记模式：位置只用于回调，内容原样返回
+            for (int i = 0, length = chunk.length(); i < length; i++) {
+                state = automaton.next(state, chunk.charAt(i));
+                automaton.emit(state, i + 1, handler);
+            }
+            return chunk;
+        }
+        for (int i = 0, length = chunk.length(); i < length; i++) {
+            pending.append(chunk.charAt(i));
+            state = automaton.next(state, chunk.charAt(i));
+            // 命中位置相对 pending：之前放行的字符不可能属于本次命中
+            automaton.emit(state, pending.length(), handler);
+        }
+        // 结尾 depth 个字符仍可能是某个词的前缀，暂不放行
+        int releasable = pending.length() - automaton.depth(state);
+        if (releasable <= 0) {
+            return "";
+        }
+        String released = pending.substring(0, releasable);
+        pending.delete(0, releasable);
+        return released;
+    }
+
+    /**
+     * 输出结束，放行暂存的内容
+     *
+     * @return 剩余内容（可能为空串）
+     */
+    public String complete() {
+        String rest = pending.toString();
+        pending.setLength(0);
+        state = DoubleArrayAhoCorasick.ROOT;
+        return rest;
+    }
+
+    /**
+     * 暂存的字符数
+     */
+    public int getPendingLength() {
+        return pending.length();
+    }
+
+    /**
+     * 命中次数
+     */
+    public int getMatchCount() {
+        return matchCount;
+    }
+
+    /**
+     * 命中的敏感词
+     */
+    public Set<String> getMatchedWords() {
+        return matchedWords;
+    }
+}
@@ -0,0 +1,120 @@
+package com.lin.linaicodemother.core.sse;
+
+
+import com.lin.linaicodemother.config.CodeGenProperties;
+import com.lin.linaicodemother.core.GenerationChunk;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/16 21:05
+ * @Descriptions SSE 内容合并
+ * 大模型每次只输出几个 token，逐条推送会产生大量小帧（每帧一次编码、一次网络写入）。
+ * 合并在 maxDelay 内到达的内容，累计超过 maxBytes 时立即推送；合并后的序号取最后一段的序号，断线续传不受影响。
+ */
+@Component
+@RequiredArgsConstructor
+public class SseChunkCoalescer {
+
+    /**
+     * 定时推送信号
+     */
+    private static final Object TICK = new Object();
+
+    /**
+     * 上游结束信号
+     */
+    private static final Object END = new Object();
+
+    private final CodeGenProperties codeGenProperties;
+
+    /**
+     * 上游失败信号
+     *
+     * @param error 异常
+     */
+    private record Failure(Throwable error) {
+    }
+
+    /**
+     * 合并内容
+     *
+     * @param source 原始内容流
+     * @return 合并后的内容流，maxDelay 为 0 时不合并
+     */
+    public Flux<GenerationChunk> coalesce(Flux<GenerationChunk> source) {
+        CodeGenProperties.SseCoalesce config = codeGenProperties.getSseCoalesce();
+        Duration maxDelay = config.getMaxDelay();
+        int maxBytes = config.getMaxBytes();
+        if (maxDelay.isZero() || maxDelay.isNegative()) {
+            return source;
+        }
+        return Flux.defer(() -> {
+            PendingChunk pending = new PendingChunk();
+            // 上游结束或失败时先推送剩余内容
+            Flux<Object> events = source.cast(Object.class)
+                    .onErrorResume(error -> Mono.just(new Failure(error)))
+                    .concatWith(Mono.just(END));
+            Flux<Object> ticks = Flux.interval(maxDelay).onBackpressureDrop().map(tick -> TICK);
+            return events.mergeWith(ticks)
+                    .takeUntil(event -> event == END || event instanceof Failure)
+                    .handle((event, sink) -> {
+                        if (event instanceof GenerationChunk chunk) {
+                            pending.append(chunk);
+                            if (pending.bytes >= maxBytes) {
+                                sink.next(pending.drain());
+                            }
+                            return;
+                        }
+                        if (!pending.isEmpty()) {
+                            sink.next(pending.drain());
+                        }
+                        if (event instanceof Failure failure) {
+                            sink.error(failure.error());
+                        }
+                    });
+        });
+    }
+
+    /**
+     * 待推送的内容
+     */
+    private static class PendingChunk {
+
+        private final StringBuilder content = new StringBuilder();
+
+        private long lastIndex;
+
+        /**
+         * 已累计内容的 UTF-8 字节数
+         */
+        private int bytes;
+
+        private void append(GenerationChunk chunk) {
+            String text = chunk.content();
+            content.append(text);
+            lastIndex = chunk.index();
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                // 代理对每个 char 按 2 字节计，合计 4 字节
+                bytes += c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+            }
+        }
+
+        private boolean isEmpty() {
+            return content.isEmpty();
+        }
+
+        private GenerationChunk drain() {
+            GenerationChunk chunk = new GenerationChunk(lastIndex, content.toString());
+            content.setLength(0);
+            bytes = 0;
+            return chunk;
+        }
+    }
+}
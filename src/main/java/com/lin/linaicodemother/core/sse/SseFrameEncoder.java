@@ -0,0 +1,60 @@
+package com.lin.linaicodemother.core.sse;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/16 20:30
+ * @Descriptions SSE 数据帧编码器
+ * 将内容编码为 {"d":"..."}，与前端约定的格式一致（包装一层 JSON 解决空格丢失问题）。
+ * 只需要转义一个字符串字段，直接写入复用的缓冲区，避免通用 JSON 序列化构造 Map 和中间对象。
+ * 非线程安全，每个 SSE 流使用一个实例。
+ */
+public class SseFrameEncoder {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final StringBuilder buffer = new StringBuilder(256);
+
+    /**
+     * 编码一帧
+     *
+     * @param content 内容
+     * @return {"d":"转义后的内容"}
+     */
+    public String encode(String content) {
+        buffer.setLength(0);
+        buffer.append("{\"d\":\"");
+        int length = content.length();
+        // 未转义的连续区间整体追加
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = content.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029') {
+                continue;
+            }
+            buffer.append(content, start, i);
+            appendEscaped(c);
+            start = i + 1;
+        }
+        buffer.append(content, start, length);
+        buffer.append("\"}");
+        return buffer.toString();
+    }
+
+    private void appendEscaped(char c) {
+        switch (c) {
+            case '"' -> buffer.append("\\\"");
+            case '\\' -> buffer.append("\\\\");
+            case '\n' -> buffer.append("\\n");
+            case '\r' -> buffer.append("\\r");
+            case '\t' -> buffer.append("\\t");
+            case '\b' -> buffer.append("\\b");
+            case '\f' -> buffer.append("\\f");
+            // 其余控制字符以及 JS 中的行分隔符使用 \\uXXXX
+            default -> buffer.append("\\u")
+                    .append(HEX_DIGITS[(c >> 12) & 0xF])
+                    .append(HEX_DIGITS[(c >> 8) & 0xF])
+                    .append(HEX_DIGITS[(c >> 4) & 0xF])
+                    .append(HEX_DIGITS[c & 0xF]);
+        }
+    }
+}
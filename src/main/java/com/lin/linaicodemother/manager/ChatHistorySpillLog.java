@@ -0,0 +1,271 @@
+package com.lin.linaicodemother.manager;
+
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lin.linaicodemother.model.entity.ChatHistory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * @Author Lin
+ * @Date 2026/3/1 20:10
+ * @Descriptions 对话历史落盘日志（分段）
+ * 入队的消息追加到当前段（{spillFile}.{序号}），段超过 segmentSize 后切换到新段。
+ * 每段记录还有多少条没有写入数据库，写库成功（commit）后减一，已切换的段全部写完后直接删除，
+ * 不必等内存队列为空。启动时把已有的段作为待重放的段，
+ * 重放失败时保留，由调用方稍后重试，成功后删除。
+ */
+@Slf4j
+class ChatHistorySpillLog {
+
+    private final Path baseFile;
+
+    private final long segmentSize;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 待重放的段（上次运行遗留），只由重放线程修改；重放期间不持有锁，不阻塞追加
+     */
+    private final List<Path> recovering = new CopyOnWriteArrayList<>();
+
+    private long nextSequence;
+
+    private Segment active;
+
+    /**
+     * 落盘日志中的一段
+     */
+    static final class Segment {
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        /**
+         * 还没有写入数据库的记录数
+         */
+        private int pending;
+
+        private boolean sealed;
+
+        private Segment(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+
+    ChatHistorySpillLog(Path baseFile, long segmentSize, ObjectMapper objectMapper) {
+        this.baseFile = baseFile;
+        this.segmentSize = segmentSize;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 找出上次运行遗留的段并打开新的当前段
+     */
+    synchronized void open() throws IOException {
+        Files.createDirectories(baseFile.getParent());
+        String prefix = baseFile.getFileName() + ".";
+        try (Stream<Path> stream = Files.list(baseFile.getParent())) {
+            stream.filter(path -> sequenceOf(path, prefix) >= 0)
+                    .sorted(Comparator.comparingLong(path -> sequenceOf(path, prefix)))
+                    .forEach(recovering::add);
+        }
+        nextSequence = recovering.stream().mapToLong(path -> sequenceOf(path, prefix)).max().orElse(-1) + 1;
+        active = newSegment();
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @param chatHistory 对话历史
+     * @return 记录所在的段，写库成功后需要 commit；落盘失败时返回 null
+     */
+    synchronized Segment append(ChatHistory chatHistory) {
+        if (active == null) {
+            return null;
+        }
+        try {
+            if (active.channel.size() >= segmentSize) {
+                rotate();
+            }
+            byte[] line = (objectMapper.writeValueAsString(chatHistory) + "\n").getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                active.channel.write(buffer);
+            }
+            active.pending++;
+            return active;
+        } catch (IOException e) {
+            log.error("写入对话历史落盘文件失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 记录已写入数据库（或已确认丢弃）
+     *
+     * @param segments 每条记录所在的段（可以为 null）
+     */
+    synchronized void commit(List<Segment> segments) {
+        Set<Segment> touched = new LinkedHashSet<>();
+        for (Segment segment : segments) {
+            if (segment != null) {
+                segment.pending--;
+                touched.add(segment);
+            }
+        }
+        for (Segment segment : touched) {
+            if (segment.pending > 0) {
+                continue;
+            }
+            try {
+                if (segment.sealed) {
+                    Files.deleteIfExists(segment.path);
+                } else if (segment == active) {
+                    active.channel.truncate(0);
+                    active.channel.position(0);
+                }
+            } catch (IOException e) {
+                log.error("清理对话历史落盘文件失败: {}, error: {}", segment.path, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 是否还有上次运行遗留、没有重放成功的段
+     */
+    boolean hasRecovering() {
+        return !recovering.isEmpty();
+    }
+
+    /**
+     * 重放遗留的段：按 id 查出已经写入的记录，只补写缺失的；每段重放成功后删除
+     *
+     * @param batchSize   每批条数
+     * @param existingIds 查询已经存在的 id（包括已逻辑删除的）
+     * @param insert      批量写入
+     * @return 补写的条数
+     * @throws IOException 读取失败；写库失败时抛出对应的运行时异常，剩余的段保留到下次重试
+     */
+    int replay(int batchSize, Function<Set<Long>, Set<Long>> existingIds,
+               Consumer<List<ChatHistory>> insert) throws IOException {
+        int replayed = 0;
+        while (!recovering.isEmpty()) {
+            Path segment = recovering.getFirst();
+            int total = 0;
+            List<ChatHistory> part = new ArrayList<>(batchSize);
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        part.add(objectMapper.readValue(line, ChatHistory.class));
+                    } catch (IOException e) {
+                        // 崩溃时最后一行可能只写了一半
+                        log.warn("跳过无法解析的落盘记录: {}", e.getMessage());
+                        continue;
+                    }
+                    if (part.size() >= batchSize) {
+                        total += part.size();
+                        replayed += insertMissing(part, existingIds, insert);
+                        part.clear();
+                    }
+                }
+            }
+            total += part.size();
+            replayed += insertMissing(part, existingIds, insert);
+            Files.deleteIfExists(segment);
+            recovering.removeFirst();
+            log.info("重放对话历史落盘文件 {} 完成，共 {} 条", segment.getFileName(), total);
+        }
+        return replayed;
+    }
+
+    /**
+     * 关闭当前段；没有未写入的记录时删除，否则保留到下次启动重放
+     */
+    synchronized void close() {
+        if (active == null) {
+            return;
+        }
+        try {
+            active.channel.close();
+            if (active.pending == 0) {
+                Files.deleteIfExists(active.path);
+            }
+        } catch (IOException e) {
+            log.warn("关闭对话历史落盘文件失败: {}", e.getMessage());
+        }
+        active = null;
+    }
+
+    private int insertMissing(List<ChatHistory> part, Function<Set<Long>, Set<Long>> existingIds,
+                              Consumer<List<ChatHistory>> insert) {
+        if (part.isEmpty()) {
+            return 0;
+        }
+        Set<Long> ids = part.stream().map(ChatHistory::getId).collect(Collectors.toSet());
+        Set<Long> existIds = existingIds.apply(ids);
+        List<ChatHistory> missing = part.stream()
+                .filter(chatHistory -> !existIds.contains(chatHistory.getId()))
+                .toList();
+        if (!missing.isEmpty()) {
+            insert.accept(missing);
+        }
+        return missing.size();
+    }
+
+    /**
+     * 切换到新段，旧段没有未写入的记录时直接删除
+     */
+    private void rotate() throws IOException {
+        Segment previous = active;
+        active = newSegment();
+        previous.sealed = true;
+        previous.channel.close();
+        if (previous.pending == 0) {
+            Files.deleteIfExists(previous.path);
+        }
+    }
+
+    private Segment newSegment() throws IOException {
+        Path path = baseFile.resolveSibling(baseFile.getFileName() + "." + nextSequence++);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        return new Segment(path, channel);
+    }
+
+    private static long sequenceOf(Path path, String prefix) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.lin.linaicodemother.manager;
+
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lin.linaicodemother.config.ChatHistoryWriteBehindProperties;
+import com.lin.linaicodemother.mapper.ChatHistoryMapper;
+import com.lin.linaicodemother.model.entity.ChatHistory;
+import com.mybatisflex.core.logicdelete.LogicDeleteManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/10 20:35
+ * @Descriptions 对话历史异步批量写入缓冲区
+ * 消息先进入内存队列，由后台线程按条数（batchSize）或时间（maxDelay）攒批，使用一条多行 INSERT 写入数据库。
+ * 持久化保障：
+ * - 入队时同步追加到本地分段落盘文件（ChatHistorySpillLog），每段的记录都写库成功后删除该段；
+ *   进程崩溃后启动时重放（按 id 去重），数据库暂不可用时由后台线程按 retryInterval 重试
+ * - 作为 SmartLifecycle 参与优雅停机，在 spring.lifecycle.timeout-per-shutdown-phase 内写完剩余消息
+ * 缓冲区未运行或队列已满时 offer 返回 false，调用方应退化为同步插入。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChatHistoryWriteBehindBuffer implements SmartLifecycle {
+
+    /**
+     * 停机时批量写入失败的最大重试次数，超过后保留落盘文件，下次启动时重放
+     */
+    private static final int SHUTDOWN_MAX_RETRIES = 3;
+
+    /**
+     * 批量写入连续失败多少次后改为逐条写入，用于隔离无法写入的单条数据
+     */
+    private static final int BATCH_MAX_RETRIES = 3;
+
+    private final ChatHistoryMapper chatHistoryMapper;
+
+    private final ChatHistoryWriteBehindProperties properties;
+
+    private final ObjectMapper objectMapper;
+
+    private BlockingQueue<Pending> queue;
+
+    /**
+     * 保证“检查容量 + 落盘 + 入队”是原子的，落盘的记录一定在队列中
+     */
+    private final Object spillLock = new Object();
+
+    private ChatHistorySpillLog spillLog;
+
+    /**
+     * 下次重试重放遗留落盘文件的时间（System.nanoTime）
+     */
+    private long nextReplayNanos;
+
+    private Thread flusher;
+
+    /**
+     * 队列中的消息及其所在的落盘段
+     *
+     * @param chatHistory 对话历史
+     * @param segment     落盘段，落盘失败时为 null
+     */
+    private record Pending(ChatHistory chatHistory, ChatHistorySpillLog.Segment segment) {
+    }
+
+    private volatile boolean running;
+
+    /**
+     * 提交一条待写入的消息
+     *
+     * @param chatHistory 对话历史（需已设置 id）
+     * @return 是否已进入缓冲区，false 表示调用方需要同步插入
+     */
+    public boolean offer(ChatHistory chatHistory) {
+        if (!running) {
+            return false;
+        }
+        synchronized (spillLock) {
+            // 只有这里入队，检查后容量不会变少
+            if (!running || queue.remainingCapacity() == 0) {
+                return false;
+            }
+            queue.offer(new Pending(chatHistory, spillLog != null ? spillLog.append(chatHistory) : null));
+        }
+        return true;
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            log.info("对话历史异步批量写入未开启");
+            return;
+        }
+        queue = new LinkedBlockingQueue<>(properties.getQueueCapacity());
+        openSpill();
+        replaySpill();
+        running = true;
+        flusher = Thread.ofPlatform().name("chat-history-flusher").daemon(true).start(this::runFlusher);
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        if (!running) {
+            callback.run();
+            return;
+        }
+        // 不再接收新消息，后台线程写完队列中剩余的消息后退出
+        running = false;
+        Thread.ofVirtual().name("chat-history-flusher-stop").start(() -> {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (spillLog != null) {
+                    spillLog.close();
+                }
+                callback.run();
+            }
+        });
+    }
+
+    @Override
+    public void stop() {
+        stop(() -> {
+        });
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 晚于 Web 服务器停止，让进行中的请求先结束
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    /**
+     * 后台攒批写入
+     */
+    private void runFlusher() {
+        int batchSize = properties.getBatchSize();
+        long maxDelayNanos = properties.getMaxDelay().toNanos();
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                if (running) {
+                    if (spillLog != null && spillLog.hasRecovering() && System.nanoTime() - nextReplayNanos >= 0) {
+                        replaySpill();
+                    }
+                    Pending first = queue.poll(maxDelayNanos, TimeUnit.NANOSECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    long deadline = System.nanoTime() + maxDelayNanos;
+                    while (batch.size() < batchSize) {
+                        long remaining = deadline - System.nanoTime();
+                        Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                } else {
+                    // 停机中：不再等待，直接取出剩余消息
+                    queue.drainTo(batch, batchSize);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("对话历史批量写入异常: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 写入一批消息，失败时重试
+     */
+    private void flush(List<Pending> pendingBatch) throws InterruptedException {
+        if (pendingBatch.isEmpty()) {
+            return;
+        }
+        List<ChatHistory> batch = pendingBatch.stream().map(Pending::chatHistory).toList();
+        int failures = 0;
+        while (true) {
+            try {
+                chatHistoryMapper.insertBatch(batch);
+                commitSpill(pendingBatch);
+                return;
+            } catch (Exception e) {
+                failures++;
+                log.error("对话历史批量写入失败（第 {} 次），条数: {}, error: {}", failures, batch.size(), e.getMessage());
+            }
+            if (!running && failures >= SHUTDOWN_MAX_RETRIES) {
+                // 停机中仍然失败：不提交，所在的落盘段保留到下次启动时重放
+                return;
+            }
+            if (failures >= BATCH_MAX_RETRIES && insertOneByOne(batch)) {
+                // 写不进去的已记录日志并丢弃
+                commitSpill(pendingBatch);
+                return;
+            }
+            Thread.sleep(properties.getRetryInterval().toMillis());
+        }
+    }
+
+    /**
+     * 逐条写入，跳过无法写入的数据
+     *
+     * @return 是否有数据写入成功（全部失败说明数据库不可用，需要继续重试）
+     */
+    private boolean insertOneByOne(List<ChatHistory> batch) {
+        List<ChatHistory> failed = new ArrayList<>();
+        for (ChatHistory chatHistory : batch) {
+            try {
+                chatHistoryMapper.insert(chatHistory);
+            } catch (Exception e) {
+                failed.add(chatHistory);
+            }
+        }
+        if (failed.size() == batch.size()) {
+            return false;
+        }
+        failed.forEach(chatHistory -> log.error("对话历史写入失败，已丢弃，id: {}, appId: {}", chatHistory.getId(), chatHistory.getAppId()));
+        return true;
+    }
+
+    /**
+     * 打开落盘文件，找出上次运行遗留的落盘段
+     */
+    private void openSpill() {
+        Path spillPath = Path.of(properties.getSpillFile());
+        ChatHistorySpillLog opened = new ChatHistorySpillLog(spillPath, properties.getSpillSegmentSize().toBytes(), objectMapper);
+        try {
+            opened.open();
+            spillLog = opened;
+        } catch (IOException e) {
+            log.error("打开对话历史落盘文件失败: {}, error: {}", spillPath, e.getMessage());
+        }
+    }
+
+    /**
+     * 重放上次运行遗留的落盘段；失败时保留，retryInterval 后由后台线程重试
+     */
+    private void replaySpill() {
+        if (spillLog == null || !spillLog.hasRecovering()) {
+            return;
+        }
+        try {
+            int replayed = spillLog.replay(properties.getBatchSize(), ids ->
+                    // 已经写入的（包括之后被逻辑删除的）不再重复写入
+                    LogicDeleteManager.execWithoutLogicDelete(() -> chatHistoryMapper.selectListByIds(ids))
+                            .stream()
+                            .map(ChatHistory::getId)
+                            .collect(Collectors.toSet()), chatHistoryMapper::insertBatch);
+            log.info("重放对话历史落盘文件完成，补写 {} 条", replayed);
+        } catch (Exception e) {
+            log.error("重放对话历史落盘文件失败，{} 后重试: {}", properties.getRetryInterval(), e.getMessage());
+            nextReplayNanos = System.nanoTime() + properties.getRetryInterval().toNanos();
+        }
+    }
+
+    /**
+     * 一批消息已写入数据库，提交所在的落盘段
+     */
+    private void commitSpill(List<Pending> pendingBatch) {
+        if (spillLog != null) {
+            spillLog.commit(pendingBatch.stream().map(Pending::segment).toList());
+        }
+    }
+}
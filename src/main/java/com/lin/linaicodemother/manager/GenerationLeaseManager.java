@@ -0,0 +1,248 @@
+package com.lin.linaicodemother.manager;
+
+
+import cn.hutool.core.util.IdUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lin.linaicodemother.config.CodeGenProperties;
+import com.lin.linaicodemother.constant.RedisKeyConstant;
+import com.lin.linaicodemother.core.GenerationChunk;
+import com.lin.linaicodemother.exception.BusinessException;
+import com.lin.linaicodemother.exception.ErrorCode;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/14 19:40
+ * @Descriptions 应用生成租约
+ * 同一应用同一时间只有一个生成任务：
+ * - 相同提示词的重复请求（双击、浏览器重连）直接订阅进行中的生成流，先重放已输出的内容，不会再次调用大模型
+ * - 不同提示词的请求直接拒绝，避免对话记忆交错、输出目录被同时写入
+ * - 开启 Redis 模式后同时在 Redis 中加锁，其他节点正在生成时直接拒绝；
+ *   生成期间每隔 redisTtl / 3 续期，节点宕机后锁在 redisTtl 内自动过期
+ * 生成流与请求解耦：客户端断开后生成继续执行并保存，重连时可以接上。
+ * 断线续传：每段内容带递增序号（SSE 事件 id），重连时带上 Last-Event-ID 即可从断开处继续，
+ * 生成结束后在 resumeGracePeriod 内仍可续传。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GenerationLeaseManager {
+
+    /**
+     * 仅删除自己持有的锁
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    /**
+     * 仅为自己持有的锁续期
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    /**
+     * 创建后长时间未被订阅的生成任务视为已放弃（如请求在订阅前就已断开）
+     */
+    private static final long ABANDON_AFTER_MILLIS = 60_000;
+
+    private final CodeGenProperties codeGenProperties;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 进行中的生成任务 appId -> 生成任务
+     */
+    private final Map<Long, Generation> generations = new ConcurrentHashMap<>();
+
+    /**
+     * 已结束的生成任务，保留一段时间用于断线续传
+     */
+    private Cache<Long, Generation> finishedGenerations;
+
+    @PostConstruct
+    public void init() {
+        finishedGenerations = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(codeGenProperties.getGenerationLease().getResumeGracePeriod())
+                .build();
+    }
+
+    /**
+     * 获取应用的生成流：已有相同提示词的生成任务时共享，否则启动新的生成任务
+     *
+     * @param appId      应用 id
+     * @param message    提示词
+     * @param generation 启动生成任务（只会执行一次）
+     * @return 生成流
+     */
+    public Flux<GenerationChunk> acquire(Long appId, String message, Supplier<Flux<String>> generation) {
+        Generation current = generations.compute(appId, (key, existing) ->
+                existing == null || existing.isAbandoned() ? new Generation(appId, message, generation) : existing);
+        if (!current.message.equals(message)) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "该应用正在生成中，请等待当前生成完成");
+        }
+        if (current.started) {
+            log.info("appId: {} 已有相同的生成任务，复用进行中的生成流", appId);
+        }
+        return current.flux;
+    }
+
+    /**
+     * 断线续传：返回序号大于 lastEventId 的内容
+     *
+     * @param appId       应用 id
+     * @param message     提示词
+     * @param lastEventId 客户端最后收到的序号
+     * @return 剩余内容，没有可续传的生成任务时为空
+     */
+    public Flux<GenerationChunk> resume(Long appId, String message, long lastEventId) {
+        Generation current = generations.get(appId);
+        if (current == null || !current.message.equals(message)) {
+            current = finishedGenerations.getIfPresent(appId);
+        }
+        if (current == null || !current.message.equals(message)) {
+            log.info("appId: {} 没有可续传的生成任务，lastEventId: {}", appId, lastEventId);
+            return Flux.empty();
+        }
+        log.info("appId: {} 断线续传，lastEventId: {}", appId, lastEventId);
+        return current.flux
+                .skipWhile(chunk -> chunk.index() <= lastEventId)
+                // 重放缓冲区有上限，断开太久时中间的内容可能已被丢弃
+                .switchOnFirst((first, flux) -> first.hasValue() && first.get().index() > lastEventId + 1
+                        ? Flux.error(new BusinessException(ErrorCode.OPERATION_ERROR, "续传内容已过期，请刷新后查看对话历史"))
+                        : flux);
+    }
+
+    /**
+     * 尝试获取 Redis 锁，未开启 Redis 模式时直接成功
+     */
+    private boolean tryAcquireRedisLease(Long appId, String leaseToken) {
+        CodeGenProperties.GenerationLease config = codeGenProperties.getGenerationLease();
+        if (!config.isRedisEnabled()) {
+            return true;
+        }
+        Boolean acquired = stringRedisTemplate.opsForValue()
+                .setIfAbsent(getRedisLeaseKey(appId), leaseToken, config.getRedisTtl());
+        return Boolean.TRUE.equals(acquired);
+    }
+
+    /**
+     * 生成期间定时为 Redis 锁续期，未开启 Redis 模式时不续期
+     *
+     * @return 停止续期
+     */
+    private Disposable scheduleRedisLeaseRenewal(Long appId, String leaseToken) {
+        CodeGenProperties.GenerationLease config = codeGenProperties.getGenerationLease();
+        if (!config.isRedisEnabled()) {
+            return Disposables.disposed();
+        }
+        Duration ttl = config.getRedisTtl();
+        Duration interval = ttl.dividedBy(3);
+        return Flux.interval(interval, interval, Schedulers.boundedElastic())
+                .onBackpressureDrop()
+                .subscribe(tick -> renewRedisLease(appId, leaseToken, ttl));
+    }
+
+    /**
+     * 为 Redis 锁续期
+     */
+    private void renewRedisLease(Long appId, String leaseToken, Duration ttl) {
+        try {
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, List.of(getRedisLeaseKey(appId)),
+                    leaseToken, String.valueOf(ttl.toMillis()));
+            if (renewed == null || renewed == 0) {
+                log.error("应用生成锁已丢失，其他节点可能同时生成，appId: {}", appId);
+            }
+        } catch (Exception e) {
+            // 续期失败时等待下次续期，锁在 redisTtl 内仍然有效
+            log.warn("应用生成锁续期失败，appId: {}, error: {}", appId, e.getMessage());
+        }
+    }
+
+    /**
+     * 释放 Redis 锁
+     */
+    private void releaseRedisLease(Long appId, String leaseToken) {
+        if (!codeGenProperties.getGenerationLease().isRedisEnabled()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(getRedisLeaseKey(appId)), leaseToken);
+        } catch (Exception e) {
+            log.warn("释放应用生成锁失败，appId: {}, error: {}", appId, e.getMessage());
+        }
+    }
+
+    private String getRedisLeaseKey(Long appId) {
+        return RedisKeyConstant.GENERATION_LEASE_KEY_PREFIX + appId;
+    }
+
+    /**
+     * 进行中的生成任务
+     */
+    private final class Generation {
+
+        private final String message;
+
+        private final String leaseToken = IdUtil.fastSimpleUUID();
+
+        private final long createTime = System.currentTimeMillis();
+
+        /**
+         * 共享的生成流：第一个订阅者触发生成，之后的订阅者先重放已输出的内容（最多 replayBufferSize 段）；
+         * 所有订阅者都断开后生成仍继续，结束（完成或失败）后释放租约
+         */
+        private final Flux<GenerationChunk> flux;
+
+        private volatile boolean started;
+
+        /**
+         * 停止 Redis 锁续期
+         */
+        private volatile Disposable leaseRenewal = Disposables.disposed();
+
+        private Generation(Long appId, String message, Supplier<Flux<String>> generation) {
+            this.message = message;
+            this.flux = Flux.defer(() -> {
+                        started = true;
+                        if (!tryAcquireRedisLease(appId, leaseToken)) {
+                            return Flux.error(new BusinessException(ErrorCode.OPERATION_ERROR, "该应用正在其他节点生成中，请稍后再试"));
+                        }
+                        leaseRenewal = scheduleRedisLeaseRenewal(appId, leaseToken);
+                        return generation.get();
+                    })
+                    .index(GenerationChunk::new)
+                    .doFinally(signalType -> {
+                        leaseRenewal.dispose();
+                        finishedGenerations.put(appId, this);
+                        generations.remove(appId, this);
+                        releaseRedisLease(appId, leaseToken);
+                    })
+                    .replay(codeGenProperties.getGenerationLease().getReplayBufferSize())
+                    .autoConnect(1);
+        }
+
+        private boolean isAbandoned() {
+            return !started && System.currentTimeMillis() - createTime > ABANDON_AFTER_MILLIS;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.lin.linaicodemother.manager;
+
+
+import com.lin.linaicodemother.model.enums.UserRoleEnum;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/25 20:20
+ * @Descriptions 登录令牌编解码
+ * 令牌是定长的二进制结构，Base64URL 编码后 56 个字符：
+ * 版本(1) | 用户 id(8) | 角色(1) | 签发时间(4) | 过期时间(4) | 随机数(8) | HMAC-SHA256 签名前 16 字节
+ * 时间为秒级时间戳；随机数用于区分同一用户的不同令牌（注销时按它吊销）。
+ * 校验只做本地计算，不访问任何存储。
+ */
+public class LoginTokenCodec {
+
+    private static final byte VERSION = 1;
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final int PAYLOAD_LENGTH = 1 + 8 + 1 + 4 + 4 + 8;
+
+    private static final int SIGNATURE_LENGTH = 16;
+
+    private static final int TOKEN_LENGTH = PAYLOAD_LENGTH + SIGNATURE_LENGTH;
+
+    /**
+     * 未知角色
+     */
+    private static final byte UNKNOWN_ROLE = -1;
+
+    private final SecretKeySpec key;
+
+    /**
+     * 令牌中的信息
+     *
+     * @param userId    用户 id
+     * @param userRole  用户角色，未知时为 null
+     * @param issuedAt  签发时间（秒）
+     * @param expiresAt 过期时间（秒）
+     * @param nonce     随机数
+     */
+    public record LoginToken(long userId, String userRole, long issuedAt, long expiresAt, long nonce) {
+    }
+
+    /**
+     * @param secret 签名密钥，至少 32 字节
+     */
+    public LoginTokenCodec(byte[] secret) {
+        if (secret == null || secret.length < 32) {
+            throw new IllegalArgumentException("登录令牌密钥至少 32 字节");
+        }
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+    }
+
+    /**
+     * 生成令牌
+     */
+    public String encode(LoginToken token) {
+        ByteBuffer buffer = ByteBuffer.allocate(TOKEN_LENGTH);
+        buffer.put(VERSION)
+                .putLong(token.userId())
+                .put(encodeRole(token.userRole()))
+                .putInt((int) token.issuedAt())
+                .putInt((int) token.expiresAt())
+                .putLong(token.nonce());
+        buffer.put(sign(buffer.array()), 0, SIGNATURE_LENGTH);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * 校验并解析令牌
+     *
+     * @param token       令牌
+     * @param nowSeconds  当前时间（秒）
+     * @return 令牌中的信息，格式错误、签名不匹配或已过期时返回 null
+     */
+    public LoginToken decode(String token, long nowSeconds) {
+        if (token == null || token.length() != (TOKEN_LENGTH * 4 + 2) / 3) {
+            return null;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (bytes.length != TOKEN_LENGTH || bytes[0] != VERSION) {
+            return null;
+        }
+        byte[] expected = Arrays.copyOf(sign(bytes), SIGNATURE_LENGTH);
+        byte[] actual = Arrays.copyOfRange(bytes, PAYLOAD_LENGTH, TOKEN_LENGTH);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, PAYLOAD_LENGTH - 1);
+        long userId = buffer.getLong();
+        String userRole = decodeRole(buffer.get());
+        long issuedAt = Integer.toUnsignedLong(buffer.getInt());
+        long expiresAt = Integer.toUnsignedLong(buffer.getInt());
+        long nonce = buffer.getLong();
+        if (expiresAt <= nowSeconds) {
+            return null;
+        }
+        return new LoginToken(userId, userRole, issuedAt, expiresAt, nonce);
+    }
+
+    /**
+     * 对令牌的前 PAYLOAD_LENGTH 字节签名
+     */
+    private byte[] sign(byte[] bytes) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            mac.update(bytes, 0, PAYLOAD_LENGTH);
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("登录令牌签名失败", e);
+        }
+    }
+
+    private static byte encodeRole(String userRole) {
+        UserRoleEnum roleEnum = UserRoleEnum.getEnumByValue(userRole);
+        return roleEnum != null ? (byte) roleEnum.ordinal() : UNKNOWN_ROLE;
+    }
+
+    private static String decodeRole(byte role) {
+        UserRoleEnum[] values = UserRoleEnum.values();
+        return role >= 0 && role < values.length ? values[role].getValue() : null;
+    }
+}
@@ -0,0 +1,140 @@
+package com.lin.linaicodemother.manager;
+
+
+import cn.hutool.core.text.CharSequenceUtil;
+import com.lin.linaicodemother.config.LoginTokenProperties;
+import com.lin.linaicodemother.manager.LoginTokenCodec.LoginToken;
+import com.lin.linaicodemother.model.dto.user.LoginUserState;
+import com.lin.linaicodemother.model.entity.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/25 21:00
+ * @Descriptions 登录令牌（无状态登录）
+ * 开启后登录不再创建会话，而是签发带签名的令牌（保存在 HttpOnly Cookie 中，也可以通过 Authorization: Bearer 请求头传递），
+ * 校验时只需本地验签、检查过期时间和吊销列表，不访问 Redis，API 节点可以任意水平扩展。
+ */
+@Component
+@RequiredArgsConstructor
+public class LoginTokenManager {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final LoginTokenProperties properties;
+
+    private final TokenRevocationList tokenRevocationList;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private LoginTokenCodec codec;
+
+    @PostConstruct
+    public void init() {
+        if (properties.isEnabled()) {
+            if (CharSequenceUtil.isBlank(properties.getSecret())) {
+                throw new IllegalStateException("开启登录令牌时必须配置 login-token.secret");
+            }
+            codec = new LoginTokenCodec(properties.getSecret().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 是否使用登录令牌
+     */
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 签发令牌并写入 Cookie
+     *
+     * @param user     登录用户
+     * @param request  请求
+     * @param response 响应
+     */
+    public void issue(User user, HttpServletRequest request, HttpServletResponse response) {
+        long now = System.currentTimeMillis() / 1000;
+        Duration ttl = properties.getTtl();
+        LoginToken token = new LoginToken(user.getId(), user.getUserRole(), now, now + ttl.toSeconds(), secureRandom.nextLong());
+        writeCookie(request, response, codec.encode(token), ttl);
+    }
+
+    /**
+     * 校验请求中的令牌
+     *
+     * @param request 请求
+     * @return 登录态，未登录、令牌无效、已过期或已吊销时返回 null
+     */
+    public LoginUserState resolve(HttpServletRequest request) {
+        LoginToken token = decode(request);
+        return token != null ? new LoginUserState(token.userId(), token.userRole()) : null;
+    }
+
+    /**
+     * 吊销请求中的令牌并清除 Cookie
+     *
+     * @param request  请求
+     * @param response 响应
+     * @return 请求中是否有有效的令牌
+     */
+    public boolean revoke(HttpServletRequest request, HttpServletResponse response) {
+        LoginToken token = decode(request);
+        if (token == null) {
+            return false;
+        }
+        tokenRevocationList.revoke(token.nonce(), token.expiresAt());
+        writeCookie(request, response, "", Duration.ZERO);
+        return true;
+    }
+
+    private LoginToken decode(HttpServletRequest request) {
+        LoginToken token = codec.decode(readToken(request), System.currentTimeMillis() / 1000);
+        if (token == null || tokenRevocationList.isRevoked(token.nonce())) {
+            return null;
+        }
+        return token;
+    }
+
+    /**
+     * 优先读取 Authorization 请求头，其次读取 Cookie
+     */
+    private String readToken(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && authorization.startsWith(BEARER_PREFIX)) {
+            return authorization.substring(BEARER_PREFIX.length()).trim();
+        }
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (properties.getCookieName().equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private void writeCookie(HttpServletRequest request, HttpServletResponse response, String value, Duration maxAge) {
+        String path = CharSequenceUtil.isEmpty(request.getContextPath()) ? "/" : request.getContextPath();
+        ResponseCookie cookie = ResponseCookie.from(properties.getCookieName(), value)
+                .httpOnly(true)
+                .secure(request.isSecure())
+                .sameSite("Lax")
+                .path(path)
+                .maxAge(maxAge)
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+}
@@ -0,0 +1,108 @@
+package com.lin.linaicodemother.manager;
+
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lin.linaicodemother.config.UserCacheProperties;
+import com.lin.linaicodemother.constant.RedisKeyConstant;
+import com.lin.linaicodemother.model.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/23 20:20
+ * @Descriptions 登录用户本地缓存
+ * 每个登录后的请求都要根据登录态中的用户 id 查询最新的用户信息，这里在本地缓存一小段时间（容量有限），避免每次都查数据库。
+ * 用户修改、删除时删除本地缓存，并通过 Redis 发布订阅通知其他节点删除；通知丢失时由过期时间兜底。
+ * 缓存的用户对象由所有请求共享，调用方不能修改。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LoginUserCache {
+
+    private final UserCacheProperties properties;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 用户 id -> 用户
+     */
+    private Cache<Long, User> userCache;
+
+    @PostConstruct
+    public void init() {
+        userCache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, userCache, "login_user");
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            String userId = new String(message.getBody(), StandardCharsets.UTF_8);
+            try {
+                userCache.invalidate(Long.valueOf(userId));
+            } catch (NumberFormatException e) {
+                log.warn("无效的用户缓存失效通知: {}", userId);
+            }
+        }, new ChannelTopic(RedisKeyConstant.USER_CACHE_INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 获取用户，未缓存时通过 loader 查询（同一用户并发未命中时只查询一次）
+     *
+     * @param userId 用户 id
+     * @param loader 查询用户，不存在时返回 null（不缓存）
+     * @return 用户，不存在时返回 null
+     */
+    public User get(Long userId, Function<Long, User> loader) {
+        if (!properties.isEnabled()) {
+            return loader.apply(userId);
+        }
+        return userCache.get(userId, loader);
+    }
+
+    /**
+     * 写入缓存（如登录时已查询到最新的用户信息）
+     *
+     * @param user 用户
+     */
+    public void put(User user) {
+        if (properties.isEnabled() && user != null && user.getId() != null) {
+            userCache.put(user.getId(), user);
+        }
+    }
+
+    /**
+     * 删除本节点和其他节点的缓存，在用户修改、删除之后调用
+     *
+     * @param userId 用户 id
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        userCache.invalidate(userId);
+        try {
+            stringRedisTemplate.convertAndSend(RedisKeyConstant.USER_CACHE_INVALIDATE_CHANNEL, String.valueOf(userId));
+        } catch (Exception e) {
+            // 通知失败时其他节点的缓存在过期后失效
+            log.warn("发送用户缓存失效通知失败，userId: {}, error: {}", userId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package com.lin.linaicodemother.manager;
+
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lin.linaicodemother.config.SessionNearCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/24 20:30
+ * @Descriptions 带本地缓存的 Redis 会话存储
+ * 每个请求都要读取会话，Spring Session 默认每次从 Redis 读取整个会话（HGETALL）并反序列化。
+ * 这里把最近使用的会话在本地缓存几秒，命中时不访问 Redis：
+ * - 会话哈希与 Spring Session 的 RedisSessionRepository 完全相同（spring:session:sessions:{id}），
+ *   版本号单独存放在 spring:session:sessions:{id}:v 中，关闭本地缓存后默认的会话存储可以直接读取已有会话
+ * - 写入时只写变化的字段，并在同一个脚本中递增版本号；返回的版本号正好是本地版本 + 1 时更新本地缓存，否则说明其他节点写入过，删除本地缓存
+ * - 通过 Redis 键空间通知感知其他节点的修改：删除、过期时直接删除本地缓存，版本号变化时比较版本号
+ * - 只有最后访问时间变化时按 accessWriteInterval 节流写回，避免每个请求都写 Redis
+ * 未开启本地缓存的节点写入时不会递增版本号，混用期间其他节点的本地缓存只能依赖 ttl 失效。
+ */
+@Slf4j
+public class NearCacheSessionRepository implements SessionRepository<NearCacheSessionRepository.NearCacheSession>, MessageListener {
+
+    private static final String CREATION_TIME = "creationTime";
+
+    private static final String LAST_ACCESSED_TIME = "lastAccessedTime";
+
+    private static final String MAX_INACTIVE_INTERVAL = "maxInactiveInterval";
+
+    private static final String ATTRIBUTE_PREFIX = "sessionAttr:";
+
+    /**
+     * 版本号 key 的后缀
+     */
+    private static final String VERSION_KEY_SUFFIX = ":v";
+
+    /**
+     * 写入变化的字段（值为空表示删除），递增并返回版本号
+     * KEYS[1] 会话 key，KEYS[2] 版本号 key，ARGV[1] 过期时间（毫秒，小于 0 表示不过期），之后是字段、值交替
+     */
+    private static final byte[] SAVE_SCRIPT = """
+            for i = 2, #ARGV, 2 do
+              if ARGV[i + 1] == '' then
+                redis.call('hdel', KEYS[1], ARGV[i])
+              else
+                redis.call('hset', KEYS[1], ARGV[i], ARGV[i + 1])
+              end
+            end
+            local version = redis.call('incr', KEYS[2])
+            if tonumber(ARGV[1]) >= 0 then
+              redis.call('pexpire', KEYS[1], ARGV[1])
+              redis.call('pexpire', KEYS[2], ARGV[1])
+            else
+              redis.call('persist', KEYS[1])
+              redis.call('persist', KEYS[2])
+            end
+            return version
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final SessionNearCacheProperties properties;
+
+    private final Duration defaultMaxInactiveInterval;
+
+    /**
+     * 会话属性的序列化方式，与 Spring Session 默认一致
+     */
+    private final RedisSerializer<Object> valueSerializer = new JdkSerializationRedisSerializer(getClass().getClassLoader());
+
+    /**
+     * 会话 key 前缀
+     */
+    private final String keyPrefix;
+
+    /**
+     * 会话 id -> 会话快照（不会被修改，取出时复制）
+     */
+    private final Cache<String, CachedSession> sessionCache;
+
+    /**
+     * 会话快照与对应的版本号
+     */
+    private record CachedSession(MapSession session, long version) {
+    }
+
+    public NearCacheSessionRepository(StringRedisTemplate stringRedisTemplate, SessionNearCacheProperties properties,
+                                      Duration defaultMaxInactiveInterval, MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+        this.keyPrefix = properties.getRedisNamespace() + ":sessions:";
+        this.sessionCache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, sessionCache, "http_session");
+    }
+
+    /**
+     * 会话 key 前缀，用于订阅键空间通知
+     */
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+
+    @Override
+    public NearCacheSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(defaultMaxInactiveInterval);
+        return new NearCacheSession(session, 0, true);
+    }
+
+    @Override
+    public void save(NearCacheSession session) {
+        String sessionId = session.getId();
+        if (!session.isNew && !sessionId.equals(session.originalId)) {
+            rename(session.originalId, sessionId);
+        }
+        Map<String, Object> delta = session.delta;
+        if (session.isNew) {
+            delta.put(CREATION_TIME, session.getCreationTime().toEpochMilli());
+            delta.put(MAX_INACTIVE_INTERVAL, (int) session.getMaxInactiveInterval().getSeconds());
+            for (String name : session.getAttributeNames()) {
+                delta.put(ATTRIBUTE_PREFIX + name, session.getAttribute(name));
+            }
+        }
+        Instant lastAccessedTime = session.getLastAccessedTime();
+        if (session.isNew || !delta.isEmpty() || !lastAccessedTime.isBefore(
+                session.persistedLastAccessedTime.plus(properties.getAccessWriteInterval()))) {
+            delta.put(LAST_ACCESSED_TIME, lastAccessedTime.toEpochMilli());
+            session.persistedLastAccessedTime = lastAccessedTime;
+        }
+        if (delta.isEmpty()) {
+            return;
+        }
+        long version = write(sessionId, delta, session.getMaxInactiveInterval());
+        if (version == session.version + 1) {
+            sessionCache.put(sessionId, new CachedSession(new MapSession(session.delegate), version));
+        } else {
+            // 期间其他节点写入过，本地的会话不完整
+            sessionCache.invalidate(sessionId);
+        }
+        delta.clear();
+        session.version = version;
+        session.originalId = sessionId;
+        session.isNew = false;
+    }
+
+    @Override
+    public NearCacheSession findById(String id) {
+        CachedSession cached = sessionCache.get(id, this::load);
+        if (cached == null) {
+            return null;
+        }
+        MapSession session = new MapSession(cached.session());
+        if (session.isExpired()) {
+            deleteById(id);
+            return null;
+        }
+        return new NearCacheSession(session, cached.version(), false);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        sessionCache.invalidate(id);
+        stringRedisTemplate.delete(List.of(keyPrefix + id, keyPrefix + id + VERSION_KEY_SUFFIX));
+    }
+
+    /**
+     * 键空间通知：其他节点修改或删除了会话
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        int index = channel.indexOf(keyPrefix);
+        if (index < 0) {
+            return;
+        }
+        String sessionId = channel.substring(index + keyPrefix.length());
+        boolean versionKey = sessionId.endsWith(VERSION_KEY_SUFFIX);
+        if (versionKey) {
+            sessionId = sessionId.substring(0, sessionId.length() - VERSION_KEY_SUFFIX.length());
+        }
+        CachedSession cached = sessionCache.getIfPresent(sessionId);
+        if (cached == null) {
+            return;
+        }
+        String event = new String(message.getBody(), StandardCharsets.UTF_8);
+        switch (event) {
+            // 每次写入都会递增版本号，版本号与本地一致说明是本节点写入的
+            case "incr" -> {
+                String version = stringRedisTemplate.opsForValue().get(keyPrefix + sessionId + VERSION_KEY_SUFFIX);
+                if (version == null || Long.parseLong(version) != cached.version()) {
+                    sessionCache.invalidate(sessionId);
+                }
+            }
+            case "del", "expired", "evicted", "rename_from" -> sessionCache.invalidate(sessionId);
+            // 同一次写入中的其他命令，等 incr 时再判断
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * 从 Redis 读取会话：先读版本号再读会话，期间有写入时本地的版本号偏旧，之后的比较会删除本地缓存
+     *
+     * @return 会话快照，不存在时返回 null
+     */
+    private CachedSession load(String id) {
+        byte[] key = (keyPrefix + id).getBytes(StandardCharsets.UTF_8);
+        byte[] versionKey = (keyPrefix + id + VERSION_KEY_SUFFIX).getBytes(StandardCharsets.UTF_8);
+        byte[][] version = new byte[1][];
+        Map<byte[], byte[]> entries = stringRedisTemplate.execute((RedisCallback<Map<byte[], byte[]>>) connection -> {
+            version[0] = connection.stringCommands().get(versionKey);
+            return connection.hashCommands().hGetAll(key);
+        });
+        if (entries == null || entries.isEmpty()) {
+            return null;
+        }
+        MapSession session = new MapSession(id);
+        for (Map.Entry<byte[], byte[]> entry : entries.entrySet()) {
+            String field = new String(entry.getKey(), StandardCharsets.UTF_8);
+            Object value = valueSerializer.deserialize(entry.getValue());
+            switch (field) {
+                case CREATION_TIME -> session.setCreationTime(Instant.ofEpochMilli(((Number) value).longValue()));
+                case LAST_ACCESSED_TIME -> session.setLastAccessedTime(Instant.ofEpochMilli(((Number) value).longValue()));
+                case MAX_INACTIVE_INTERVAL -> session.setMaxInactiveInterval(Duration.ofSeconds(((Number) value).longValue()));
+                default -> {
+                    if (field.startsWith(ATTRIBUTE_PREFIX)) {
+                        session.setAttribute(field.substring(ATTRIBUTE_PREFIX.length()), value);
+                    }
+                }
+            }
+        }
+        // 默认的会话存储写入的会话没有版本号
+        return new CachedSession(session, version[0] == null ? 0 : Long.parseLong(new String(version[0], StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 写入变化的字段
+     *
+     * @return 写入后的版本号
+     */
+    private long write(String sessionId, Map<String, Object> delta, Duration maxInactiveInterval) {
+        List<byte[]> keysAndArgs = new ArrayList<>(3 + delta.size() * 2);
+        keysAndArgs.add((keyPrefix + sessionId).getBytes(StandardCharsets.UTF_8));
+        keysAndArgs.add((keyPrefix + sessionId + VERSION_KEY_SUFFIX).getBytes(StandardCharsets.UTF_8));
+        long ttl = maxInactiveInterval.isNegative() ? -1 : maxInactiveInterval.toMillis();
+        keysAndArgs.add(String.valueOf(ttl).getBytes(StandardCharsets.UTF_8));
+        delta.forEach((field, value) -> {
+            keysAndArgs.add(field.getBytes(StandardCharsets.UTF_8));
+            keysAndArgs.add(value == null ? EMPTY : valueSerializer.serialize(value));
+        });
+        Long version = stringRedisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.scriptingCommands().eval(SAVE_SCRIPT, ReturnType.INTEGER, 2, keysAndArgs.toArray(new byte[0][])));
+        return version != null ? version : 0;
+    }
+
+    /**
+     * 会话 id 变更（防止会话固定攻击）时重命名 Redis 中的会话
+     */
+    private void rename(String originalId, String sessionId) {
+        sessionCache.invalidate(originalId);
+        try {
+            stringRedisTemplate.rename(keyPrefix + originalId, keyPrefix + sessionId);
+        } catch (Exception e) {
+            // 原会话已过期
+            log.warn("重命名会话失败，sessionId: {}, error: {}", originalId, e.getMessage());
+        }
+        try {
+            stringRedisTemplate.rename(keyPrefix + originalId + VERSION_KEY_SUFFIX, keyPrefix + sessionId + VERSION_KEY_SUFFIX);
+        } catch (Exception e) {
+            // 默认的会话存储写入的会话没有版本号，之后按版本号 0 写入
+            log.debug("重命名会话版本号失败，sessionId: {}, error: {}", originalId, e.getMessage());
+        }
+    }
+
+    /**
+     * 会话：在 MapSession 上记录变化的字段，保存时只写这些字段
+     */
+    public static final class NearCacheSession implements Session {
+
+        private final MapSession delegate;
+
+        /**
+         * 变化的字段 -> 新值（null 表示删除）
+         */
+        private final Map<String, Object> delta = new HashMap<>();
+
+        private String originalId;
+
+        private long version;
+
+        private boolean isNew;
+
+        private Instant persistedLastAccessedTime;
+
+        private NearCacheSession(MapSession delegate, long version, boolean isNew) {
+            this.delegate = delegate;
+            this.originalId = delegate.getId();
+            this.version = version;
+            this.isNew = isNew;
+            this.persistedLastAccessedTime = delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            return delegate.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return delegate.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return delegate.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            delegate.setAttribute(attributeName, attributeValue);
+            delta.put(ATTRIBUTE_PREFIX + attributeName, attributeValue);
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            setAttribute(attributeName, null);
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return delegate.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            delegate.setLastAccessedTime(lastAccessedTime);
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            delegate.setMaxInactiveInterval(interval);
+            delta.put(MAX_INACTIVE_INTERVAL, (int) interval.getSeconds());
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return delegate.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return delegate.isExpired();
+        }
+    }
+}
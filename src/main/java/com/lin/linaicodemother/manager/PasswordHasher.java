@@ -0,0 +1,219 @@
+package com.lin.linaicodemother.manager;
+
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.lin.linaicodemother.config.PasswordHashProperties;
+import com.lin.linaicodemother.exception.BusinessException;
+import com.lin.linaicodemother.exception.ErrorCode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/26 20:20
+ * @Descriptions 密码哈希
+ * 使用 PBKDF2-HMAC-SHA256，每个用户独立的随机盐，结果格式：pbkdf2_sha256$迭代次数$盐$哈希（Base64）。
+ * 迭代次数默认在启动时按目标耗时自动测定；哈希计算是 CPU 密集操作，统一在有界的专用线程池中执行，
+ * 登录高峰时最多占用 maxConcurrency 个核心，排队超过 queueCapacity 时直接拒绝，不会拖垮处理其他请求的线程。
+ * 兼容旧的加盐 MD5：校验通过后由调用方用 needsRehash 判断并重新哈希，逐步完成迁移。
+ * 自动测定的迭代次数因节点、每次启动而不同，只有低于 minIterations 的哈希才重新计算，避免不同节点来回重算；
+ * 需要整体提高强度时配置固定的 iterations，低于该值的哈希会在下次登录时重新计算。
+ */
+@Slf4j
+@Component
+public class PasswordHasher {
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+
+    private static final String PREFIX = "pbkdf2_sha256$";
+
+    private static final int SALT_LENGTH = 16;
+
+    private static final int KEY_LENGTH = 256;
+
+    /**
+     * 旧版 MD5 的固定盐值
+     */
+    private static final String LEGACY_SALT = "lin-ai-code-mother";
+
+    private static final String EXECUTOR_NAME = "password_hash";
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private final ThreadPoolExecutor executor;
+
+    private final int iterations;
+
+    /**
+     * 迭代次数低于该值的哈希需要重新计算：配置了固定迭代次数时为该值，自动测定时为下限
+     */
+    private final int rehashBelowIterations;
+
+    /**
+     * 账号不存在时用于校验的哈希，使耗时与账号存在时相同，避免通过响应时间探测账号
+     */
+    private final String dummyHash;
+
+    public PasswordHasher(PasswordHashProperties properties, MeterRegistry meterRegistry) {
+        boolean configured = properties.getIterations() > 0;
+        this.iterations = configured ? properties.getIterations() : tuneIterations(properties);
+        this.rehashBelowIterations = configured ? iterations : Math.min(iterations, properties.getMinIterations());
+        this.executor = new ThreadPoolExecutor(
+                properties.getMaxConcurrency(),
+                properties.getMaxConcurrency(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                Thread.ofPlatform().name("password-hash-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, EXECUTOR_NAME, Tags.empty()).bindTo(meterRegistry);
+        this.dummyHash = encode(randomSalt(), iterations, "dummy-password");
+        log.info("密码哈希迭代次数: {}{}", iterations, configured ? "" : "（自动测定，多节点部署时建议配置固定值 password-hash.iterations）");
+    }
+
+    /**
+     * 计算密码哈希
+     *
+     * @param password 明文密码
+     * @return 哈希
+     */
+    public String hash(String password) {
+        return submit(() -> encode(randomSalt(), iterations, password));
+    }
+
+    /**
+     * 校验密码
+     *
+     * @param password 明文密码
+     * @param encoded  保存的哈希（新格式或旧版 MD5），为 null 时（账号不存在）同样计算一次哈希
+     * @return 是否匹配
+     */
+    public boolean matches(String password, String encoded) {
+        if (encoded == null) {
+            submit(() -> verify(password, dummyHash));
+            return false;
+        }
+        if (!encoded.startsWith(PREFIX)) {
+            return MessageDigest.isEqual(legacyHash(password).getBytes(StandardCharsets.UTF_8), encoded.getBytes(StandardCharsets.UTF_8));
+        }
+        return submit(() -> verify(password, encoded));
+    }
+
+    /**
+     * 是否需要重新哈希（旧版 MD5，或迭代次数低于配置的固定值；自动测定时低于下限）
+     *
+     * @param encoded 保存的哈希
+     * @return 是否需要重新哈希
+     */
+    public boolean needsRehash(String encoded) {
+        if (encoded == null || !encoded.startsWith(PREFIX)) {
+            return true;
+        }
+        String[] parts = encoded.split("\\$");
+        return parts.length != 4 || Integer.parseInt(parts[1]) < rehashBelowIterations;
+    }
+
+    /**
+     * 当前使用的迭代次数
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 在专用线程池中执行，调用方等待结果
+     */
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "请求过多，请稍后重试");
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "密码校验被中断");
+        } catch (ExecutionException e) {
+            log.error("密码哈希计算失败", e.getCause());
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "密码校验失败");
+        }
+    }
+
+    private static boolean verify(String password, String encoded) {
+        String[] parts = encoded.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        byte[] salt = Base64.getDecoder().decode(parts[2]);
+        byte[] expected = Base64.getDecoder().decode(parts[3]);
+        return MessageDigest.isEqual(expected, pbkdf2(password, salt, Integer.parseInt(parts[1])));
+    }
+
+    private static String encode(byte[] salt, int iterations, String password) {
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(pbkdf2(password, salt, iterations));
+    }
+
+    static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, KEY_LENGTH);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 计算失败", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    static String legacyHash(String password) {
+        return DigestUtil.md5Hex(password + LEGACY_SALT);
+    }
+
+    private byte[] randomSalt() {
+        byte[] salt = new byte[SALT_LENGTH];
+        secureRandom.nextBytes(salt);
+        return salt;
+    }
+
+    /**
+     * 按目标耗时测定迭代次数：取几次试算中最快的一次，按比例换算，取整到千
+     */
+    private static int tuneIterations(PasswordHashProperties properties) {
+        int probeIterations = 20_000;
+        byte[] salt = new byte[SALT_LENGTH];
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            pbkdf2("auto-tune", salt, probeIterations);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        long tuned = properties.getTargetLatency().toNanos() * probeIterations / Math.max(best, 1) / 1000 * 1000;
+        return (int) Math.clamp(tuned, properties.getMinIterations(), properties.getMaxIterations());
+    }
+}
@@ -0,0 +1,197 @@
+package com.lin.linaicodemother.manager;
+
+
+import com.lin.linaicodemother.config.LoginTokenProperties;
+import com.lin.linaicodemother.constant.RedisKeyConstant;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @Author Lin
+ * @Date 2026/2/25 20:40
+ * @Descriptions 登录令牌吊销列表
+ * 注销的令牌记录在 Redis 有序集合中（分数为令牌过期时间），同时通过发布订阅通知所有节点加入本地布隆过滤器。
+ * 校验令牌时先查本地布隆过滤器，未命中（绝大多数请求）直接放行，不访问 Redis；命中时再查询 Redis 确认，排除误判。
+ * 布隆过滤器不能删除元素，定期从 Redis 全量重建，同时清理已过期的令牌，也补上丢失的通知。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenRevocationList {
+
+    private final LoginTokenProperties properties;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private volatile BloomFilter bloomFilter;
+
+    /**
+     * 正在重建的布隆过滤器，重建期间收到的通知同时加入
+     */
+    private volatile BloomFilter rebuilding;
+
+    private ScheduledExecutorService syncExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                add(Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8)));
+            } catch (NumberFormatException e) {
+                log.warn("无效的令牌吊销通知");
+            }
+        }, new ChannelTopic(RedisKeyConstant.LOGIN_TOKEN_REVOKED_CHANNEL));
+        bloomFilter = newBloomFilter();
+        rebuild();
+        long interval = properties.getRevocation().getSyncInterval().toMillis();
+        syncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-revocation-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncExecutor.scheduleWithFixedDelay(this::rebuild, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (syncExecutor != null) {
+            syncExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 吊销令牌
+     *
+     * @param nonce     令牌随机数
+     * @param expiresAt 令牌过期时间（秒），过期后从吊销列表中清理
+     */
+    public void revoke(long nonce, long expiresAt) {
+        String member = Long.toString(nonce);
+        stringRedisTemplate.opsForZSet().add(RedisKeyConstant.LOGIN_TOKEN_REVOKED_KEY, member, expiresAt);
+        add(nonce);
+        stringRedisTemplate.convertAndSend(RedisKeyConstant.LOGIN_TOKEN_REVOKED_CHANNEL, member);
+    }
+
+    /**
+     * 令牌是否已吊销
+     *
+     * @param nonce 令牌随机数
+     * @return 是否已吊销
+     */
+    public boolean isRevoked(long nonce) {
+        BloomFilter filter = bloomFilter;
+        if (filter == null || !filter.mightContain(nonce)) {
+            return false;
+        }
+        // 布隆过滤器可能误判，查询 Redis 确认
+        return stringRedisTemplate.opsForZSet().score(RedisKeyConstant.LOGIN_TOKEN_REVOKED_KEY, Long.toString(nonce)) != null;
+    }
+
+    private void add(long nonce) {
+        BloomFilter filter = bloomFilter;
+        if (filter != null) {
+            filter.put(nonce);
+        }
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.put(nonce);
+        }
+    }
+
+    /**
+     * 从 Redis 全量重建布隆过滤器，并清理已过期的令牌
+     */
+    private void rebuild() {
+        try {
+            long now = System.currentTimeMillis() / 1000;
+            stringRedisTemplate.opsForZSet().removeRangeByScore(RedisKeyConstant.LOGIN_TOKEN_REVOKED_KEY, 0, now);
+            BloomFilter next = newBloomFilter();
+            rebuilding = next;
+            Set<String> members = stringRedisTemplate.opsForZSet().rangeByScore(RedisKeyConstant.LOGIN_TOKEN_REVOKED_KEY, now, Double.POSITIVE_INFINITY);
+            if (members != null) {
+                members.forEach(member -> next.put(Long.parseLong(member)));
+                if (members.size() > properties.getRevocation().getExpectedInsertions()) {
+                    log.warn("已吊销的登录令牌数 {} 超过布隆过滤器预计容量，误判率会升高", members.size());
+                }
+            }
+            bloomFilter = next;
+        } catch (Exception e) {
+            log.warn("同步登录令牌吊销列表失败: {}", e.getMessage());
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    private BloomFilter newBloomFilter() {
+        LoginTokenProperties.Revocation revocation = properties.getRevocation();
+        return new BloomFilter(revocation.getExpectedInsertions(), revocation.getFalsePositiveRate());
+    }
+
+    /**
+     * 以 long 为元素的布隆过滤器（线程安全）
+     */
+    static final class BloomFilter {
+
+        private final AtomicLongArray bits;
+
+        private final long bitSize;
+
+        private final int hashCount;
+
+        BloomFilter(int expectedInsertions, double falsePositiveRate) {
+            long size = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bits = new AtomicLongArray((int) Math.max(1, (size + 63) >>> 6));
+            this.bitSize = (long) bits.length() << 6;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+        }
+
+        void put(long value) {
+            long hash1 = mix(value);
+            long hash2 = mix(hash1);
+            for (int i = 0; i < hashCount; i++) {
+                long index = Math.floorMod(hash1 + i * hash2, bitSize);
+                bits.getAndAccumulate((int) (index >>> 6), 1L << index, (current, mask) -> current | mask);
+            }
+        }
+
+        boolean mightContain(long value) {
+            long hash1 = mix(value);
+            long hash2 = mix(hash1);
+            for (int i = 0; i < hashCount; i++) {
+                long index = Math.floorMod(hash1 + i * hash2, bitSize);
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * SplitMix64 混淆
+         */
+        private static long mix(long value) {
+            long z = value + 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.lin.linaicodemother.model.dto.app;
+
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 应用部署回滚请求
+ */
+@Data
+public class AppDeployRollbackRequest implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 应用 id
+     */
+    private Long appId;
+
+    /**
+     * 回滚到的版本，为空时回滚到上一个版本
+     */
+    private String version;
+
+}
@@ -0,0 +1,30 @@
+package com.lin.linaicodemother.model.dto.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 会话中保存的登录态（只保存用户 id 和角色，最新的用户信息按 id 查询）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoginUserState implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 4728405938102856711L;
+
+    /**
+     * 用户 id
+     */
+    private Long userId;
+
+    /**
+     * 用户角色
+     */
+    private String userRole;
+}
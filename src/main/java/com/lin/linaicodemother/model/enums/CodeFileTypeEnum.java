@@ -0,0 +1,51 @@
+package com.lin.linaicodemother.model.enums;
+
+import cn.hutool.core.util.ObjUtil;
+import lombok.Getter;
+
+/**
+ * 代码文件类型枚举（对应 Markdown 代码块的语言标识）
+ */
+@Getter
+public enum CodeFileTypeEnum {
+
+    HTML("HTML 文件", "html", "index.html"),
+    CSS("CSS 文件", "css", "style.css"),
+    JS("JavaScript 文件", "js", "script.js");
+
+    private final String text;
+
+    private final String value;
+
+    /**
+     * 保存时使用的文件名
+     */
+    private final String fileName;
+
+    CodeFileTypeEnum(String text, String value, String fileName) {
+        this.text = text;
+        this.value = value;
+        this.fileName = fileName;
+    }
+
+    /**
+     * 根据代码块的语言标识获取枚举（忽略大小写，javascript 视为 js）
+     *
+     * @param tag 代码块语言标识，如 ```html 中的 html
+     * @return 枚举值，无法识别时返回 null
+     */
+    public static CodeFileTypeEnum getEnumByFenceTag(String tag) {
+        if (ObjUtil.isEmpty(tag)) {
+            return null;
+        }
+        if ("javascript".equalsIgnoreCase(tag)) {
+            return JS;
+        }
+        for (CodeFileTypeEnum anEnum : CodeFileTypeEnum.values()) {
+            if (anEnum.value.equalsIgnoreCase(tag)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,33 @@
+package com.lin.linaicodemother.model.vo;
+
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 应用部署版本
+ */
+@Data
+public class AppDeployVersionVO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 版本
+     */
+    private String version;
+
+    /**
+     * 部署时间
+     */
+    private LocalDateTime deployedTime;
+
+    /**
+     * 是否为当前发布的版本
+     */
+    private Boolean current;
+
+}
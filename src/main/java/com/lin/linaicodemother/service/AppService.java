@@ -1,8 +1,10 @@
 package com.lin.linaicodemother.service;
 
+import com.lin.linaicodemother.core.GenerationChunk;
 import com.lin.linaicodemother.model.dto.app.AppQueryRequest;
 import com.lin.linaicodemother.model.entity.App;
 import com.lin.linaicodemother.model.entity.User;
+import com.lin.linaicodemother.model.vo.AppDeployVersionVO;
 import com.lin.linaicodemother.model.vo.AppVO;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.core.service.IService;
@@ -20,12 +22,13 @@ public interface AppService extends IService<App> {
     /**
      * 通过对话生成应用代码
      *
-     * @param appId     应用 ID
-     * @param message   提示词
-     * @param loginUser 登录用户
-     * @return 流式响应
+     * @param appId       应用 ID
+     * @param message     提示词
+     * @param loginUser   登录用户
+     * @param lastEventId 断线重连时客户端最后收到的内容序号，为空表示新请求
+     * @return 流式响应（带序号）
      */
-    Flux<String> chatToGenCode(Long appId, String message, User loginUser);
+    Flux<GenerationChunk> chatToGenCode(Long appId, String message, User loginUser, Long lastEventId);
 
     /**
      * 应用部署
@@ -36,6 +39,25 @@ public interface AppService extends IService<App> {
      */
     String deployApp(Long appId, User loginUser);
 
+    /**
+     * 回滚应用部署
+     *
+     * @param appId     应用 ID
+     * @param version   回滚到的版本，为空时回滚到上一个版本
+     * @param loginUser 登录用户
+     * @return 可访问的部署url地址
+     */
+    String rollbackDeploy(Long appId, String version, User loginUser);
+
+    /**
+     * 获取应用保留的部署版本
+     *
+     * @param appId     应用 ID
+     * @param loginUser 登录用户
+     * @return 部署版本列表，最近部署的在前
+     */
+    List<AppDeployVersionVO> listDeployVersions(Long appId, User loginUser);
+
     /**
      * 判断传入内容是否含有敏感词
      *
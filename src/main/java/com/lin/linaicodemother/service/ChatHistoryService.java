@@ -59,6 +59,22 @@ public interface ChatHistoryService extends IService<ChatHistory> {
      */
     int loadChatHistoryToMemory(Long appId, MessageWindowChatMemory chatMemory, int maxCount);
 
+    /**
+     * 预热对话记忆：Redis 中的记忆非空、未过期且数据库中没有高水位之后的新记录时直接复用，否则从数据库加载
+     *
+     * @param appId      应用 id
+     * @param chatMemory 对话记忆
+     * @param maxCount   最多加载多少条
+     */
+    void warmUpChatMemory(Long appId, MessageWindowChatMemory chatMemory, int maxCount);
+
+    /**
+     * 标记对话记忆与对话历史不一致，下次预热时从数据库重新加载
+     *
+     * @param appId 应用 id
+     */
+    void markChatMemoryStale(Long appId);
+
     /**
      * 构造对话历史查询条件
      *
@@ -1,5 +1,6 @@
 package com.lin.linaicodemother.service;
 
+import com.lin.linaicodemother.model.dto.user.LoginUserState;
 import com.lin.linaicodemother.model.dto.user.UserQueryRequest;
 import com.lin.linaicodemother.model.entity.User;
 import com.lin.linaicodemother.model.vo.LoginUserVO;
@@ -7,6 +8,7 @@ import com.lin.linaicodemother.model.vo.UserVO;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.core.service.IService;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 import java.util.List;
 
@@ -41,9 +43,10 @@ public interface UserService extends IService<User> {
      * @param userAccount  用户账户
      * @param userPassword 用户密码
      * @param request
+     * @param response 响应（令牌模式下写入令牌 Cookie）
      * @return 脱敏后的用户信息
      */
-    LoginUserVO userLogin(String userAccount, String userPassword, HttpServletRequest request);
+    LoginUserVO userLogin(String userAccount, String userPassword, HttpServletRequest request, HttpServletResponse response);
 
     /**
      * 获取当前登录用户
@@ -53,6 +56,14 @@ public interface UserService extends IService<User> {
      */
     User getLoginUser(HttpServletRequest request);
 
+    /**
+     * 获取当前登录用户的 id 和角色（令牌模式下只做本地校验，不查询数据库和 Redis）
+     *
+     * @param request
+     * @return 登录态
+     */
+    LoginUserState getLoginUserState(HttpServletRequest request);
+
     /**
      * 获取脱敏后的用户信息
      *
@@ -73,9 +84,10 @@ public interface UserService extends IService<User> {
      * 用户注销
      *
      * @param request
+     * @param response 响应（令牌模式下清除令牌 Cookie）
      * @return 退出登录是否成功
      */
-    boolean userLogout(HttpServletRequest request);
+    boolean userLogout(HttpServletRequest request, HttpServletResponse response);
 
     /**
      * 根据查询条件构造数据查询参数
@@ -4,12 +4,18 @@ import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.text.CharSequenceUtil;
 import cn.hutool.core.util.RandomUtil;
-import com.github.houbb.sensitive.word.core.SensitiveWordHelper;
 import com.lin.linaicodemother.constant.AppConstant;
 import com.lin.linaicodemother.core.AiCodeGeneratorFacade;
+import com.lin.linaicodemother.core.GenerationChunk;
+import com.lin.linaicodemother.core.PostGenerationExecutor;
+import com.lin.linaicodemother.core.ResponseAccumulator;
+import com.lin.linaicodemother.core.deploy.DeployVersion;
+import com.lin.linaicodemother.core.deploy.SnapshotDeployer;
+import com.lin.linaicodemother.core.sensitive.SensitiveWordScreener;
 import com.lin.linaicodemother.exception.BusinessException;
 import com.lin.linaicodemother.exception.ErrorCode;
 import com.lin.linaicodemother.exception.ThrowUtils;
+import com.lin.linaicodemother.manager.GenerationLeaseManager;
 import com.lin.linaicodemother.mapper.AppMapper;
 import com.lin.linaicodemother.mapstruct.AppModuleMapper;
 import com.lin.linaicodemother.model.dto.app.AppQueryRequest;
@@ -17,6 +23,7 @@ import com.lin.linaicodemother.model.entity.App;
 import com.lin.linaicodemother.model.entity.User;
 import com.lin.linaicodemother.model.enums.ChatHistoryMessageTypeEnum;
 import com.lin.linaicodemother.model.enums.CodeGenTypeEnum;
+import com.lin.linaicodemother.model.vo.AppDeployVersionVO;
 import com.lin.linaicodemother.model.vo.AppVO;
 import com.lin.linaicodemother.model.vo.UserVO;
 import com.lin.linaicodemother.service.AppService;
@@ -29,10 +36,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -56,16 +68,25 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
 
     private final ChatHistoryService chatHistoryService;
 
+    private final PostGenerationExecutor postGenerationExecutor;
+
+    private final GenerationLeaseManager generationLeaseManager;
+
+    private final SensitiveWordScreener sensitiveWordScreener;
+
+    private final SnapshotDeployer snapshotDeployer;
+
     /**
      * 通过对话生成应用代码
      *
-     * @param appId     应用 ID
-     * @param message   提示词
-     * @param loginUser 登录用户
+     * @param appId       应用 ID
+     * @param message     提示词
+     * @param loginUser   登录用户
+     * @param lastEventId 断线重连时客户端最后收到的内容序号，为空表示新请求
      * @return
      */
     @Override
-    public Flux<String> chatToGenCode(Long appId, String message, User loginUser) {
+    public Flux<GenerationChunk> chatToGenCode(Long appId, String message, User loginUser, Long lastEventId) {
         // 1. 参数校验
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用 ID 错误");
         ThrowUtils.throwIf(CharSequenceUtil.isBlank(message), ErrorCode.PARAMS_ERROR, "提示词不能为空");
@@ -84,24 +105,37 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         if (codeGenTypeEnum == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "应用代码生成类型错误");
         }
-        // 5. 调用 AI 生成代码 先保存用户消息到数据库中
-        chatHistoryService.addChatMessage(appId, message, ChatHistoryMessageTypeEnum.USER.getValue(), loginUser.getId());
-        // 6. 调用 AI 生成代码（流式）
-        Flux<String> contentFlux = aiCodeGeneratorFacade.generateAndSaveCodeStream(message, codeGenTypeEnum, appId);
-        // 7. 收集 AI 响应的内容，并且在完成后保存记录到对话历史
-        StringBuilder aiResponseBuilder = new StringBuilder();
-        return contentFlux.map(chunk -> {
-            // 实时收集 AI 响应的内容
-            aiResponseBuilder.append(chunk);
-            return chunk;
-        }).doOnComplete(() -> {
-            // 流式返回完成后，保存 AI 消息到对话历史中
-            String aiResponse = aiResponseBuilder.toString();
-            chatHistoryService.addChatMessage(appId, aiResponse, ChatHistoryMessageTypeEnum.AI.getValue(), loginUser.getId());
-        }).doOnError(error -> {
-            // 如果 AI 回复失败，也需要保存记录到数据库中
-            String errorMessage = "AI 回复失败：" + error.getMessage();
-            chatHistoryService.addChatMessage(appId, errorMessage, ChatHistoryMessageTypeEnum.AI.getValue(), loginUser.getId());
+        // 5. 断线重连：从进行中（或刚结束）的生成任务中续传，不重新调用大模型
+        if (lastEventId != null) {
+            return generationLeaseManager.resume(appId, message, lastEventId);
+        }
+        // 同一应用同一时间只有一个生成任务，重复请求复用进行中的生成流
+        return generationLeaseManager.acquire(appId, message, () -> {
+            // 6. 先保存用户消息到数据库中
+            chatHistoryService.addChatMessage(appId, message, ChatHistoryMessageTypeEnum.USER.getValue(), loginUser.getId());
+            // 7. 调用 AI 生成代码（流式），AI 响应收集到累加器中，与代码解析共用同一份
+            ResponseAccumulator aiResponse = new ResponseAccumulator();
+            Flux<String> contentFlux = aiCodeGeneratorFacade.generateAndSaveCodeStream(message, codeGenTypeEnum, appId, aiResponse);
+            // 8. 完成后保存记录到对话历史（在后处理线程池中写库，不阻塞模型回调线程）
+            return contentFlux.doOnComplete(() -> postGenerationExecutor.execute("保存 AI 消息", () ->
+                    // 流式返回完成后，保存 AI 消息到对话历史中
+                    chatHistoryService.addChatMessage(appId, aiResponse.toString(), ChatHistoryMessageTypeEnum.AI.getValue(), loginUser.getId()),
+                    // 任务被丢弃时也要释放
+                    aiResponse::release
+            )).doOnError(error -> {
+                // 如果 AI 回复失败，也需要保存记录到数据库中
+                String errorMessage = "AI 回复失败：" + error.getMessage();
+                postGenerationExecutor.execute("保存 AI 错误消息", () -> {
+                    chatHistoryService.addChatMessage(appId, errorMessage, ChatHistoryMessageTypeEnum.AI.getValue(), loginUser.getId());
+                    // 错误消息不在对话记忆中，下次从数据库重新加载
+                    chatHistoryService.markChatMemoryStale(appId);
+                });
+            }).doFinally(signalType -> {
+                // 正常完成时由后处理任务释放
+                if (signalType != SignalType.ON_COMPLETE) {
+                    aiResponse.release();
+                }
+            });
         });
     }
 
@@ -137,10 +171,9 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
             log.error("应用部署失败，应用代码路径{}不存在，请先生成应用:", sourceDirPath);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "应用部署失败，应用代码路径不存在，请先生成应用");
         }
-        // 7.复制文件到部署路径
-        String deployDirPath = AppConstant.CODE_DEPLOY_ROOT_DIR + File.separator + deployKey;
+        // 7.生成部署快照并原子切换部署路径（内容未变化的文件不复制）
         try {
-            FileUtil.copyContent(new File(sourceDirPath), new File(deployDirPath), true);
+            snapshotDeployer.deploy(Path.of(sourceDirPath), deployKey);
         } catch (Exception e) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "应用部署失败：" + e.getMessage());
         }
@@ -157,6 +190,79 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         return CharSequenceUtil.format("{}/{}/", AppConstant.CODE_DEPLOY_HOST, deployKey);
     }
 
+    /**
+     * 回滚应用部署：部署路径重新指向保留的某个版本，不复制文件
+     *
+     * @param appId     应用 ID
+     * @param version   回滚到的版本，为空时回滚到上一个版本
+     * @param loginUser 登录用户
+     * @return 可访问的部署url地址
+     */
+    @Override
+    public String rollbackDeploy(Long appId, String version, User loginUser) {
+        // 1.校验应用信息及权限
+        App app = getOwnApp(appId, loginUser);
+        ThrowUtils.throwIf(CharSequenceUtil.isBlank(app.getDeployKey()), ErrorCode.OPERATION_ERROR, "应用尚未部署");
+        String deployKey = app.getDeployKey();
+        // 2.切换到指定版本
+        DeployVersion target;
+        try {
+            target = snapshotDeployer.rollback(deployKey, CharSequenceUtil.isBlank(version) ? null : version);
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "应用回滚失败：" + e.getMessage());
+        }
+        ThrowUtils.throwIf(target == null, ErrorCode.NOT_FOUND_ERROR, "部署版本不存在");
+        // 3.更新该应用的deployedTime,editTime
+        App updateApp = new App();
+        updateApp.setId(appId);
+        LocalDateTime now = LocalDateTime.now();
+        updateApp.setDeployedTime(now);
+        updateApp.setEditTime(now);
+        boolean updateResult = this.updateById(updateApp);
+        ThrowUtils.throwIf(!updateResult, ErrorCode.OPERATION_ERROR, "更新应用部署信息失败");
+        return CharSequenceUtil.format("{}/{}/", AppConstant.CODE_DEPLOY_HOST, deployKey);
+    }
+
+    /**
+     * 获取应用保留的部署版本
+     *
+     * @param appId     应用 ID
+     * @param loginUser 登录用户
+     * @return 部署版本列表，最近部署的在前
+     */
+    @Override
+    public List<AppDeployVersionVO> listDeployVersions(Long appId, User loginUser) {
+        App app = getOwnApp(appId, loginUser);
+        String deployKey = app.getDeployKey();
+        if (CharSequenceUtil.isBlank(deployKey)) {
+            return List.of();
+        }
+        try {
+            String current = snapshotDeployer.currentVersion(deployKey);
+            return snapshotDeployer.listVersions(deployKey).stream().map(deployVersion -> {
+                AppDeployVersionVO versionVO = new AppDeployVersionVO();
+                versionVO.setVersion(deployVersion.id());
+                versionVO.setDeployedTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(deployVersion.deployedAt()), ZoneId.systemDefault()));
+                versionVO.setCurrent(deployVersion.id().equals(current));
+                return versionVO;
+            }).toList();
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "获取部署版本失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 校验并获取应用：仅本人可以管理应用部署
+     */
+    private App getOwnApp(Long appId, User loginUser) {
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用 ID 错误");
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NOT_LOGIN_ERROR, "用户未登录");
+        App app = this.getById(appId);
+        ThrowUtils.throwIf(app == null, ErrorCode.NOT_FOUND_ERROR, "应用不存在");
+        ThrowUtils.throwIf(!app.getUserId().equals(loginUser.getId()), ErrorCode.NO_AUTH_ERROR, "无操作权限");
+        return app;
+    }
+
     /**
      * 判断传入内容是否含有敏感词
      *
@@ -165,11 +271,8 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
      */
     @Override
     public List<String> checkSensitive(String content) {
-        // TODO: 有空改造下，现在这个太敏感了
-        if (CharSequenceUtil.isBlank(content)) {
-            return List.of();
-        }
-        return SensitiveWordHelper.findAll(content);
+        // TODO: 有空改造下，现在这个太敏感了（可在本地词库文件中用 ! 移除误判的词）
+        return sensitiveWordScreener.screen(content);
     }
 
     /**
@@ -2,10 +2,14 @@ package com.lin.linaicodemother.service.impl;
 
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.util.IdUtil;
+import com.lin.linaicodemother.config.RedisChatMemoryStoreConfig;
+import com.lin.linaicodemother.constant.RedisKeyConstant;
 import com.lin.linaicodemother.constant.UserConstant;
 import com.lin.linaicodemother.exception.BusinessException;
 import com.lin.linaicodemother.exception.ErrorCode;
 import com.lin.linaicodemother.exception.ThrowUtils;
+import com.lin.linaicodemother.manager.ChatHistoryWriteBehindBuffer;
 import com.lin.linaicodemother.mapper.ChatHistoryMapper;
 import com.lin.linaicodemother.model.dto.chathistory.ChatHistoryQueryRequest;
 import com.lin.linaicodemother.model.entity.App;
@@ -23,8 +27,10 @@ import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -42,6 +48,12 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
 
     private final AppService appService;
 
+    private final ChatHistoryWriteBehindBuffer chatHistoryWriteBehindBuffer;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisChatMemoryStoreConfig redisChatMemoryStoreConfig;
+
     /**
      * 添加对话历史
      *
@@ -61,13 +73,24 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         // 验证消息类型是否有效
         ChatHistoryMessageTypeEnum messageTypeEnum = ChatHistoryMessageTypeEnum.getEnumByValue(messageType);
         ThrowUtils.throwIf(messageTypeEnum == null, ErrorCode.PARAMS_ERROR, "不支持的消息类型");
-        // 插入数据库
+        // id、时间由应用侧生成，异步批量写入与同步插入结果一致
+        LocalDateTime now = LocalDateTime.now();
         ChatHistory chatHistory = ChatHistory.builder()
+                .id(IdUtil.getSnowflakeNextId())
                 .appId(appId)
                 .message(message)
                 .messageType(messageType)
                 .userId(userId)
+                .createTime(now)
+                .updateTime(now)
+                .isDelete(0)
                 .build();
+        // 对话记忆中同样会追加这条消息，推进高水位（仅当记忆已同步时）
+        advanceChatMemoryHwm(appId, chatHistory.getId());
+        // 优先进入异步批量写入缓冲区，缓冲区不可用或已满时同步插入
+        if (chatHistoryWriteBehindBuffer.offer(chatHistory)) {
+            return true;
+        }
         return this.save(chatHistory);
     }
 
@@ -82,6 +105,7 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         if (appId == null || appId <= 0) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "应用 id 不能为空");
         }
+        markChatMemoryStale(appId);
         QueryWrapper queryWrapper = QueryWrapper.create()
                 .eq("app_id", appId);
         return this.remove(queryWrapper);
@@ -150,6 +174,8 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
                 }
                 loadedCount++;
             }
+            // 记录记忆已同步到的最后一条对话历史
+            setChatMemoryHwm(appId, historyList.getLast().getId());
             log.info("成功为 appId: {} 加载 {} 条历史消息", appId, loadedCount);
             return loadedCount;
         } catch (Exception e) {
@@ -159,6 +185,93 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         }
     }
 
+    /**
+     * 预热对话记忆
+     * Redis 中的记忆非空、高水位存在且数据库中没有比高水位更新的对话历史时直接复用，
+     * 只需按 idx_app_id_create_time 查一次最新 id，避免每次创建 AI 服务都加载历史并重写 Redis；
+     * 记忆为空（如 TTL 过期）、高水位缺失（如生成失败、历史被删除）或有不经过 addChatMessage 写入的新记录时从数据库加载。
+     *
+     * @param appId      应用 id
+     * @param chatMemory 对话记忆
+     * @param maxCount   最多加载多少条
+     */
+    @Override
+    public void warmUpChatMemory(Long appId, MessageWindowChatMemory chatMemory, int maxCount) {
+        try {
+            String hwm = stringRedisTemplate.opsForValue().get(getChatMemoryHwmKey(appId));
+            if (hwm != null && !chatMemory.messages().isEmpty()) {
+                // id 为雪花 id，随时间递增；最新 id 小于高水位说明还有消息在异步批量写入中，同样视为已同步
+                Long latestId = getLatestChatHistoryId(appId);
+                if (latestId == null || latestId <= Long.parseLong(hwm)) {
+                    log.info("appId: {} 的对话记忆已同步到 {}，跳过数据库加载", appId, hwm);
+                    return;
+                }
+                log.info("appId: {} 有高水位 {} 之后写入的对话历史 {}，重新加载对话记忆", appId, hwm, latestId);
+            }
+        } catch (Exception e) {
+            log.warn("读取对话记忆高水位失败，appId: {}, error: {}", appId, e.getMessage());
+        }
+        loadChatHistoryToMemory(appId, chatMemory, maxCount);
+    }
+
+    /**
+     * 标记对话记忆需要重新加载
+     *
+     * @param appId 应用 id
+     */
+    @Override
+    public void markChatMemoryStale(Long appId) {
+        try {
+            stringRedisTemplate.delete(getChatMemoryHwmKey(appId));
+        } catch (Exception e) {
+            log.warn("删除对话记忆高水位失败，appId: {}, error: {}", appId, e.getMessage());
+        }
+    }
+
+    /**
+     * 设置对话记忆高水位，过期时间与 Redis 对话记忆一致
+     */
+    private void setChatMemoryHwm(Long appId, Long historyId) {
+        try {
+            stringRedisTemplate.opsForValue().set(getChatMemoryHwmKey(appId), String.valueOf(historyId), getChatMemoryTtl());
+        } catch (Exception e) {
+            log.warn("设置对话记忆高水位失败，appId: {}, error: {}", appId, e.getMessage());
+        }
+    }
+
+    /**
+     * 推进对话记忆高水位，高水位不存在（记忆未同步）时不处理
+     */
+    private void advanceChatMemoryHwm(Long appId, Long historyId) {
+        try {
+            stringRedisTemplate.opsForValue().setIfPresent(getChatMemoryHwmKey(appId), String.valueOf(historyId), getChatMemoryTtl());
+        } catch (Exception e) {
+            log.warn("推进对话记忆高水位失败，appId: {}, error: {}", appId, e.getMessage());
+        }
+    }
+
+    /**
+     * 应用最新一条对话历史的 id（走 idx_app_id_create_time 索引）
+     */
+    private Long getLatestChatHistoryId(Long appId) {
+        QueryWrapper queryWrapper = QueryWrapper.create()
+                .select(CHAT_HISTORY.ID)
+                .eq(ChatHistory::getAppId, appId)
+                .orderBy(ChatHistory::getCreateTime, false)
+                .orderBy(ChatHistory::getId, false)
+                .limit(1);
+        return this.getMapper().selectObjectByQueryAs(queryWrapper, Long.class);
+    }
+
+    private String getChatMemoryHwmKey(Long appId) {
+        return RedisKeyConstant.CHAT_MEMORY_HWM_KEY_PREFIX + appId;
+    }
+
+    private Duration getChatMemoryTtl() {
+        long ttl = redisChatMemoryStoreConfig.getTtl();
+        return ttl > 0 ? Duration.ofSeconds(ttl) : Duration.ofDays(1);
+    }
+
     /**
      * 构造对话历史查询条件
      *
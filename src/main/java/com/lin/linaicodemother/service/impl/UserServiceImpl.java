@@ -2,12 +2,15 @@ package com.lin.linaicodemother.service.impl;
 
 import cn.hutool.core.text.CharSequenceUtil;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.crypto.digest.DigestUtil;
 import com.lin.linaicodemother.exception.BusinessException;
 import com.lin.linaicodemother.exception.ErrorCode;
 import com.lin.linaicodemother.exception.ThrowUtils;
+import com.lin.linaicodemother.manager.LoginTokenManager;
+import com.lin.linaicodemother.manager.LoginUserCache;
+import com.lin.linaicodemother.manager.PasswordHasher;
 import com.lin.linaicodemother.mapper.UserMapper;
 import com.lin.linaicodemother.mapstruct.UserModuleMapper;
+import com.lin.linaicodemother.model.dto.user.LoginUserState;
 import com.lin.linaicodemother.model.dto.user.UserQueryRequest;
 import com.lin.linaicodemother.model.entity.User;
 import com.lin.linaicodemother.model.enums.UserRoleEnum;
@@ -18,10 +21,14 @@ import com.mybatisflex.core.logicdelete.LogicDeleteManager;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.spring.service.impl.ServiceImpl;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 import static com.lin.linaicodemother.constant.UserConstant.USER_LOGIN_STATE;
@@ -31,12 +38,24 @@ import static com.lin.linaicodemother.constant.UserConstant.USER_LOGIN_STATE;
  *
  * @author Lin
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements UserService {
 
+    /**
+     * 当前请求已解析的登录用户（请求属性），同一请求内不重复查询
+     */
+    private static final String LOGIN_USER_ATTRIBUTE = UserServiceImpl.class.getName() + ".loginUser";
+
     private final UserModuleMapper userModuleMapper;
 
+    private final LoginUserCache loginUserCache;
+
+    private final LoginTokenManager loginTokenManager;
+
+    private final PasswordHasher passwordHasher;
+
     @Override
     public long userRegister(String userAccount, String userPassword, String checkPassword) {
         // 1. 校验参数
@@ -83,43 +102,82 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     }
 
     @Override
-    public LoginUserVO userLogin(String userAccount, String userPassword, HttpServletRequest request) {
+    public LoginUserVO userLogin(String userAccount, String userPassword, HttpServletRequest request,
+                                 HttpServletResponse response) {
         // 1. 校验参数
         ThrowUtils.throwIf(CharSequenceUtil.hasBlank(userAccount, userPassword), ErrorCode.PARAMS_ERROR, "参数为空");
         verifyUserAccountAndPassword(userAccount, userPassword);
-        // 2. 加密
-        String encryptPassword = getEncryptPassword(userPassword);
-        // 3. 查询用户是否存在
+        // 2. 查询用户，校验密码（账号不存在时同样计算一次哈希，耗时一致）
         QueryWrapper queryWrapper = new QueryWrapper();
         queryWrapper.eq("user_account", userAccount);
-        queryWrapper.eq("user_password", encryptPassword);
         User user = this.mapper.selectOneByQuery(queryWrapper);
-        if (user == null) {
+        if (!passwordHasher.matches(userPassword, user != null ? user.getUserPassword() : null)) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "用户不存在或密码错误");
         }
-        // 4. 如果用户存在，记录用户的登录态
-        request.getSession().setAttribute(USER_LOGIN_STATE, user);
+        // 3. 旧版 MD5 或迭代次数过低的密码，登录成功后重新哈希
+        if (passwordHasher.needsRehash(user.getUserPassword())) {
+            rehashPassword(user, userPassword);
+        }
+        // 4. 如果用户存在，记录用户的登录态：令牌模式下签发令牌，否则保存到会话（只保存用户 id 和角色，会话保持小巧）
+        if (loginTokenManager.isEnabled()) {
+            loginTokenManager.issue(user, request, response);
+        } else {
+            request.getSession().setAttribute(USER_LOGIN_STATE, new LoginUserState(user.getId(), user.getUserRole()));
+        }
+        loginUserCache.put(user);
         // 5. 返回脱敏的用户信息
         return this.getLoginUserVO(user);
     }
 
     @Override
     public User getLoginUser(HttpServletRequest request) {
+        // 同一请求内（如权限校验切面和接口本身）只解析一次
+        if (request.getAttribute(LOGIN_USER_ATTRIBUTE) instanceof User loginUser) {
+            return loginUser;
+        }
         // 先判断用户是否登录
-        Object userObj = request.getSession().getAttribute(USER_LOGIN_STATE);
-        User currentUser = (User) userObj;
-        if (currentUser == null || currentUser.getId() == null) {
+        LoginUserState loginState = readLoginState(request);
+        if (loginState == null || loginState.getUserId() == null) {
             throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR);
         }
-        // 从数据库查询当前用户信息
-        long userId = currentUser.getId();
-        currentUser = this.getById(userId);
+        // 查询当前用户的最新信息（优先本地缓存）
+        User currentUser = loginUserCache.get(loginState.getUserId(), this::getById);
         if (currentUser == null) {
             throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR);
         }
+        request.setAttribute(LOGIN_USER_ATTRIBUTE, currentUser);
         return currentUser;
     }
 
+    @Override
+    public LoginUserState getLoginUserState(HttpServletRequest request) {
+        if (loginTokenManager.isEnabled()) {
+            LoginUserState loginState = loginTokenManager.resolve(request);
+            ThrowUtils.throwIf(loginState == null, ErrorCode.NOT_LOGIN_ERROR);
+            return loginState;
+        }
+        // 会话模式下以数据库中的最新角色为准
+        User loginUser = getLoginUser(request);
+        return new LoginUserState(loginUser.getId(), loginUser.getUserRole());
+    }
+
+    /**
+     * 读取请求的登录态：令牌模式下校验令牌，否则读取会话（兼容改版前保存整个用户实体的会话）
+     *
+     * @param request 请求
+     * @return 登录态，未登录时返回 null
+     */
+    private LoginUserState readLoginState(HttpServletRequest request) {
+        if (loginTokenManager.isEnabled()) {
+            return loginTokenManager.resolve(request);
+        }
+        Object loginState = request.getSession().getAttribute(USER_LOGIN_STATE);
+        if (loginState instanceof User user) {
+            return new LoginUserState(user.getId(), user.getUserRole());
+        }
+        return (LoginUserState) loginState;
+    }
+
     @Override
     public UserVO getUserVO(User user) {
         return userModuleMapper.userToUserVO(user);
@@ -131,7 +189,13 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     }
 
     @Override
-    public boolean userLogout(HttpServletRequest request) {
+    public boolean userLogout(HttpServletRequest request, HttpServletResponse response) {
+        // 令牌模式：吊销令牌
+        if (loginTokenManager.isEnabled()) {
+            ThrowUtils.throwIf(!loginTokenManager.revoke(request, response), ErrorCode.OPERATION_ERROR, "用户未登录");
+            request.removeAttribute(LOGIN_USER_ATTRIBUTE);
+            return true;
+        }
         // 先判断用户是否登录
         Object userObj = request.getSession().getAttribute(USER_LOGIN_STATE);
         if (userObj == null) {
@@ -139,9 +203,40 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         }
         // 移除登录态
         request.getSession().removeAttribute(USER_LOGIN_STATE);
+        request.removeAttribute(LOGIN_USER_ATTRIBUTE);
         return true;
     }
 
+    /**
+     * 修改用户后删除登录用户缓存（updateById(User) 也会调用这里）
+     */
+    @Override
+    public boolean updateById(User entity, boolean ignoreNulls) {
+        boolean result = super.updateById(entity, ignoreNulls);
+        loginUserCache.invalidate(entity.getId());
+        return result;
+    }
+
+    /**
+     * 删除用户后删除登录用户缓存
+     */
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        loginUserCache.invalidate(Long.valueOf(id.toString()));
+        return result;
+    }
+
+    /**
+     * 批量删除用户后删除登录用户缓存
+     */
+    @Override
+    public boolean removeByIds(Collection<? extends Serializable> ids) {
+        boolean result = super.removeByIds(ids);
+        ids.forEach(id -> loginUserCache.invalidate(Long.valueOf(id.toString())));
+        return result;
+    }
+
     @Override
     public QueryWrapper getQueryWrapper(UserQueryRequest userQueryRequest) {
         if (userQueryRequest == null) {
@@ -190,8 +285,23 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
 
     @Override
     public String getEncryptPassword(String userPassword) {
-        // 盐值，混淆密码
-        final String SALT = "lin-ai-code-mother";
-        return DigestUtil.md5Hex(userPassword + SALT);
+        // 每次使用随机盐，相同密码的结果不同，校验使用 PasswordHasher.matches
+        return passwordHasher.hash(userPassword);
+    }
+
+    /**
+     * 用当前的哈希参数重新保存密码，失败时不影响本次登录
+     *
+     * @param user         用户
+     * @param userPassword 明文密码
+     */
+    private void rehashPassword(User user, String userPassword) {
+        try {
+            String encryptPassword = getEncryptPassword(userPassword);
+            this.updateById(User.builder().id(user.getId()).userPassword(encryptPassword).build());
+            user.setUserPassword(encryptPassword);
+        } catch (Exception e) {
+            log.warn("重新哈希密码失败，userId: {}, error: {}", user.getId(), e.getMessage());
+        }
     }
 }
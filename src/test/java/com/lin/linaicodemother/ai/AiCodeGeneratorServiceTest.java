@@ -16,13 +16,13 @@ class AiCodeGeneratorServiceTest {
 
     @Test
     void generateHtmlCode() {
-        HtmlCodeResult result = aiCodeGeneratorService.generateHtmlCode("生成一个美食相关的HTML页面，代码不超过20行");
+        HtmlCodeResult result = aiCodeGeneratorService.generateHtmlCode(0, "生成一个美食相关的HTML页面，代码不超过20行");
         Assertions.assertNotNull(result);
     }
 
     @Test
     void generateMultiFileCode() {
-        MultiFileCodeResult result = aiCodeGeneratorService.generateMultiFileCode("生成一个美食相关HTML页面，代码不超过50行");
+        MultiFileCodeResult result = aiCodeGeneratorService.generateMultiFileCode(0, "生成一个美食相关HTML页面，代码不超过50行");
         Assertions.assertNotNull(result);
     }
 
@@ -0,0 +1,61 @@
+package com.lin.linaicodemother.core;
+
+import com.lin.linaicodemother.config.CodeGenProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 队列满时拒绝任务并计数，不转到其他线程池
+ */
+class PostGenerationExecutorTest {
+
+    @Test
+    void rejectWhenQueueFull() throws InterruptedException {
+        CodeGenProperties properties = new CodeGenProperties();
+        properties.getPostProcess().setMaxConcurrency(1);
+        properties.getPostProcess().setQueueCapacity(1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PostGenerationExecutor executor = new PostGenerationExecutor(properties, meterRegistry);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // 占满唯一的线程和队列
+            executor.execute("阻塞", () -> {
+                running.countDown();
+                awaitQuietly(release);
+            });
+            running.await();
+            executor.execute("排队", () -> {
+            });
+
+            AtomicBoolean ran = new AtomicBoolean();
+            AtomicBoolean cleaned = new AtomicBoolean();
+            executor.execute("溢出", () -> ran.set(true), () -> cleaned.set(true));
+            assertFalse(ran.get());
+            assertTrue(cleaned.get());
+            assertThrows(RejectedExecutionException.class, () -> executor.submit("溢出", () -> {
+            }).block());
+            assertEquals(2, meterRegistry.counter("post.generation.rejected", "reason", "queue_full").count());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.lin.linaicodemother.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResponseAccumulatorTest {
+
+    @Test
+    void viewMatchesConcatenatedChunks() {
+        String content = "```html\n<h1>你好</h1>\n```\n结束";
+        ResponseAccumulator response = new ResponseAccumulator();
+        for (int i = 0; i < content.length(); i += 3) {
+            response.append(content.substring(i, Math.min(content.length(), i + 3)));
+        }
+        assertEquals(content.length(), response.length());
+        assertEquals(content, response.toString());
+        for (int i = 0; i < content.length(); i++) {
+            assertEquals(content.charAt(i), response.charAt(i));
+        }
+        assertEquals(content.substring(2, 17), response.substring(2, 17));
+        assertEquals(content.substring(8, 9), response.substring(8, 9));
+    }
+}
@@ -0,0 +1,104 @@
+package com.lin.linaicodemother.core;
+
+import com.lin.linaicodemother.ai.embedding.HashingEmbeddingModel;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SemanticPromptIndexTest {
+
+    private static final float THRESHOLD = 0.65f;
+
+    private static final String BOILERPLATE = "，要求页面美观大方，适配手机和电脑，使用现代化的配色和圆角卡片布局，"
+            + "导航栏固定在顶部，底部有版权信息，所有代码写在一个 HTML 文件中，不要使用外部依赖";
+
+    private final HashingEmbeddingModel embeddingModel = new HashingEmbeddingModel(512);
+
+    /**
+     * 换了说法的提示词命中
+     */
+    @Test
+    void matchParaphrasedPrompts() {
+        SemanticPromptIndex index = newIndex(16);
+        add(index, "生成一个登录页面", "login");
+        add(index, "做一个个人博客网站", "blog");
+        add(index, "生成一个美食相关的HTML页面", "food");
+        add(index, "做一个待办事项清单应用", "todo");
+        assertEquals("login", search(index, "帮我生成一个登录页面"));
+        assertEquals("blog", search(index, "帮我做一个个人的博客网站"));
+        assertEquals("food", search(index, "生成一个关于美食的 html 页面"));
+        assertEquals("todo", search(index, "帮我写一个待办事项清单的应用"));
+        assertNull(search(index, "生成一个音乐播放器页面"));
+    }
+
+    /**
+     * 只有关键词不同的提示词（共用大段模板时向量相似度很高）不命中
+     */
+    @Test
+    void rejectPromptsWithDifferentKeywords() {
+        String red = "做一个红色主题的博客" + BOILERPLATE;
+        String blue = "做一个蓝色主题的商城" + BOILERPLATE;
+        assertTrue(dot(embeddingModel.embedVector(red), embeddingModel.embedVector(blue)) >= 0.85f);
+
+        SemanticPromptIndex index = newIndex(16);
+        add(index, red, "red-blog");
+        add(index, "生成一个登录页面", "login");
+        add(index, "做一个个人博客网站", "blog");
+        assertNull(search(index, blue));
+        assertNull(search(index, "做一个红色主题的商城" + BOILERPLATE));
+        assertNull(search(index, "做一个蓝色主题的博客" + BOILERPLATE));
+        assertNull(search(index, "做一个带评论区的红色主题的博客" + BOILERPLATE));
+        assertNull(search(index, "生成一个注册页面"));
+        assertNull(search(index, "做一个个人简历网站"));
+        assertEquals("red-blog", search(index, "请帮我做一个红色主题的博客" + BOILERPLATE));
+    }
+
+    @Test
+    void compareDifferingSpan() {
+        SemanticPromptIndex index = newIndex(1);
+        assertTrue(index.isSameRequirement("登录页面", "登录页面"));
+        assertTrue(index.isSameRequirement("帮我生成登录页面吧", "生成登录页面"));
+        assertTrue(index.isSameRequirement("生成美食相关的页面", "生成关于美食的页面"));
+        assertFalse(index.isSameRequirement("红色博客", "蓝色博客"));
+        assertFalse(index.isSameRequirement("生成登录页面", "生成一个带验证码的登录页面"));
+    }
+
+    /**
+     * 超过容量后覆盖最早的记录
+     */
+    @Test
+    void overwriteOldestEntry() {
+        SemanticPromptIndex index = newIndex(2);
+        add(index, "生成一个登录页面", "login");
+        add(index, "做一个个人博客网站", "blog");
+        add(index, "生成一个美食相关的HTML页面", "food");
+        assertEquals(2, index.size());
+        assertNull(search(index, "生成一个登录页面"));
+        assertEquals("blog", search(index, "做一个个人博客网站"));
+    }
+
+    private static SemanticPromptIndex newIndex(int capacity) {
+        return new SemanticPromptIndex(512, capacity, 4, 0.5);
+    }
+
+    private void add(SemanticPromptIndex index, String prompt, String key) {
+        String normalized = prompt.toLowerCase();
+        index.add(embeddingModel.embedVector(normalized), normalized, key);
+    }
+
+    private String search(SemanticPromptIndex index, String prompt) {
+        String normalized = prompt.toLowerCase();
+        return index.search(embeddingModel.embedVector(normalized), normalized, THRESHOLD);
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
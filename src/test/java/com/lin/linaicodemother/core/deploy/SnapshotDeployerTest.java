@@ -0,0 +1,125 @@
+package com.lin.linaicodemother.core.deploy;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotDeployerTest {
+
+    private final Path workDir;
+
+    private final Path deployRoot;
+
+    private final SnapshotDeployer deployer;
+
+    SnapshotDeployerTest() throws IOException {
+        workDir = Files.createTempDirectory("snapshot-deployer-test");
+        deployRoot = workDir.resolve("deploy");
+        deployer = new SnapshotDeployer(deployRoot, 2);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> stream = Files.walk(workDir)) {
+            for (Path path : stream.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    void deployAndRedeployUnchanged() throws IOException {
+        Path source = writeSite("app1", "<h1>hello</h1>", "body {}");
+        Path deployPath = deployer.deploy(source, "abc123");
+        assertTrue(Files.isSymbolicLink(deployPath));
+        assertEquals("<h1>hello</h1>", Files.readString(deployPath.resolve("index.html")));
+        assertEquals("body {}", Files.readString(deployPath.resolve("css/style.css")));
+
+        Path target = Files.readSymbolicLink(deployPath);
+        Object fileKey = Files.readAttributes(deployPath.resolve("index.html"), "unix:ino").get("ino");
+        // 内容未变化，复用原快照
+        deployer.deploy(source, "abc123");
+        assertEquals(target, Files.readSymbolicLink(deployPath));
+        assertEquals(fileKey, Files.readAttributes(deployPath.resolve("index.html"), "unix:ino").get("ino"));
+    }
+
+    @Test
+    void retainVersionsAndRollback() throws IOException {
+        Path source = writeSite("app1", "<h1>v1</h1>", "body {}");
+        Path deployPath = deployer.deploy(source, "abc123");
+        Path first = Files.readSymbolicLink(deployPath);
+        Files.writeString(source.resolve("index.html"), "<h1>v2</h1>");
+        deployer.deploy(source, "abc123");
+        String v2 = deployer.currentVersion("abc123");
+        Files.writeString(source.resolve("index.html"), "<h1>v3</h1>");
+        deployer.deploy(source, "abc123");
+        String v3 = deployer.currentVersion("abc123");
+        assertNotEquals(v2, v3);
+        assertEquals("<h1>v3</h1>", Files.readString(deployPath.resolve("index.html")));
+
+        // 只保留最近 2 个版本，最早的快照及其独占的文件被清理
+        assertEquals(List.of(v3, v2), deployer.listVersions("abc123").stream().map(DeployVersion::id).toList());
+        assertFalse(Files.exists(deployRoot.resolve(first)));
+        assertEquals(3, countBlobs());
+
+        // 回滚到上一个版本
+        assertEquals(v2, deployer.rollback("abc123", null).id());
+        assertEquals("<h1>v2</h1>", Files.readString(deployPath.resolve("index.html")));
+        // 已经是最早的版本
+        assertNull(deployer.rollback("abc123", null));
+        // 回滚到指定版本
+        assertEquals(v3, deployer.rollback("abc123", v3).id());
+        assertEquals("<h1>v3</h1>", Files.readString(deployPath.resolve("index.html")));
+        assertNull(deployer.rollback("abc123", "0000000000000000"));
+        assertEquals(List.of(v3, v2), deployer.listVersions("abc123").stream().map(DeployVersion::id).toList());
+    }
+
+    @Test
+    void shareIdenticalFilesAcrossApps() throws IOException {
+        deployer.deploy(writeSite("app1", "<h1>one</h1>", "body {}"), "key1");
+        deployer.deploy(writeSite("app2", "<h1>two</h1>", "body {}"), "key2");
+        // 两个应用共用同一份样式文件
+        assertEquals(3, countBlobs());
+        assertEquals("<h1>two</h1>", Files.readString(deployRoot.resolve("key2/index.html")));
+    }
+
+    @Test
+    void replaceLegacyCopiedDirectory() throws IOException {
+        Path legacy = Files.createDirectories(deployRoot.resolve("abc123"));
+        Files.writeString(legacy.resolve("old.html"), "old");
+        Path deployPath = deployer.deploy(writeSite("app1", "<h1>new</h1>", "body {}"), "abc123");
+        assertTrue(Files.isSymbolicLink(deployPath));
+        assertFalse(Files.exists(deployPath.resolve("old.html")));
+        // 旧目录在链接换上之后才删除，不留下临时链接或移开的旧目录
+        try (Stream<Path> stream = Files.list(deployRoot)) {
+            assertEquals(Set.of(".blobs", ".snapshots", "abc123"),
+                    stream.map(path -> path.getFileName().toString()).collect(Collectors.toSet()));
+        }
+    }
+
+    private Path writeSite(String name, String html, String css) throws IOException {
+        Path source = Files.createDirectories(workDir.resolve(name).resolve("css"));
+        Files.writeString(source.resolve("style.css"), css);
+        return Files.writeString(workDir.resolve(name).resolve("index.html"), html).getParent();
+    }
+
+    private long countBlobs() throws IOException {
+        try (Stream<Path> stream = Files.walk(deployRoot.resolve(".blobs"))) {
+            return stream.filter(Files::isRegularFile).count();
+        }
+    }
+}
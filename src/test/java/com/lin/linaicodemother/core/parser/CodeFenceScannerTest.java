@@ -0,0 +1,72 @@
+package com.lin.linaicodemother.core.parser;
+
+import com.lin.linaicodemother.ai.model.MultiFileCodeResult;
+import com.lin.linaicodemother.model.enums.CodeFileTypeEnum;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CodeFenceScannerTest {
+
+    /**
+     * 替换前解析器使用的正则
+     */
+    private static final Pattern HTML_CODE_PATTERN = Pattern.compile("```html\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CSS_CODE_PATTERN = Pattern.compile("```css\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
+    private static final Pattern JS_CODE_PATTERN = Pattern.compile("```(?:js|javascript)\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
+
+    private static final List<String> CONTENTS = List.of(
+            "说明\n```html\n<html></html>\n```\n```css\nh1 { color: red; }\n```\n```javascript\nconsole.log(`x`);\n```\n完成",
+            "```HTML  \r\n\n  <p>大写标识</p>\n```\n```JS\nlet a = 1;\n```",
+            "```html\n<p>漏写闭合栅栏\n```css\nbody {}\n```",
+            "```python\nprint(1)\n```\n```html\n<p>在其他语言之后</p>\n```",
+            "```\n无语言标识\n```\n```css\n.a {}\n```",
+            "````html\n<p>四个反引号</p>\n````",
+            "```html5\n<p>不识别</p>\n```\n```json\n{}\n```\n```html foo\nx\n```",
+            "```css\n   \n```\n```css\n.second {}\n```",
+            "```html\n<p>第一个</p>\n```\n```html\n<p>第二个</p>\n```",
+            "```html\n<p>未闭合",
+            "没有代码块"
+    );
+
+    @Test
+    void parseSameAsRegex() {
+        MultiFileCodeParser parser = new MultiFileCodeParser();
+        for (String content : CONTENTS) {
+            MultiFileCodeResult result = parser.parseCode(content);
+            assertEquals(extract(content, HTML_CODE_PATTERN), result.getHtmlCode(), content);
+            assertEquals(extract(content, CSS_CODE_PATTERN), result.getCssCode(), content);
+            assertEquals(extract(content, JS_CODE_PATTERN), result.getJsCode(), content);
+            String expectedHtml = extract(content, HTML_CODE_PATTERN);
+            assertEquals(expectedHtml != null ? expectedHtml : content.trim(), new HtmlCodeParser().parseCode(content).getHtmlCode(), content);
+        }
+    }
+
+    @Test
+    void scanAllFences() {
+        String content = "```html\n<p>a</p>\n```\n文字\n```\nplain\n```\n```HTML\n<p>b</p>\n```";
+        List<CodeFenceScanner.CodeFence> fences = CodeFenceScanner.scan(content);
+        assertEquals(3, fences.size());
+        assertEquals(CodeFileTypeEnum.HTML, fences.get(0).fileType());
+        assertEquals("<p>a</p>\n", fences.get(0).content().toString());
+        assertEquals("", fences.get(1).language());
+        assertEquals("plain", fences.get(1).trimmedContent().toString());
+        assertEquals("HTML", fences.get(2).language());
+        assertEquals("<p>b</p>", fences.get(2).trimmedContent().toString());
+        // 非 String 的输入结果一致
+        assertEquals(fences.size(), CodeFenceScanner.scan(new StringBuilder(content)).size());
+    }
+
+    private static String extract(String content, Pattern pattern) {
+        Matcher matcher = pattern.matcher(content);
+        if (!matcher.find()) {
+            return null;
+        }
+        String code = matcher.group(1).trim();
+        return code.isEmpty() ? null : code;
+    }
+}
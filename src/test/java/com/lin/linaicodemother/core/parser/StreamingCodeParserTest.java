@@ -0,0 +1,75 @@
+package com.lin.linaicodemother.core.parser;
+
+import com.lin.linaicodemother.ai.model.HtmlCodeResult;
+import com.lin.linaicodemother.ai.model.MultiFileCodeResult;
+import com.lin.linaicodemother.core.ResponseAccumulator;
+import com.lin.linaicodemother.model.enums.CodeGenTypeEnum;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreamingCodeParserTest {
+
+    private static final String MULTI_FILE_CONTENT = """
+            创建一个完整的网页：
+            ```html
+            <!DOCTYPE html>
+            <html>
+            <body>
+                <h1>欢迎使用 `code`</h1>
+                <script src="script.js"></script>
+            </body>
+            </html>
+            ```
+            ```css
+            h1 {
+                color: blue;
+            }
+            ```
+            ```javascript
+            console.log(`页面加载完成`);
+            ```
+            文件创建完成！
+            """;
+
+    /**
+     * 任意切分方式下，流式解析结果都应与正则解析器一致
+     */
+    @Test
+    void parseMultiFileCodeInChunks() {
+        MultiFileCodeResult expected = new MultiFileCodeParser().parseCode(MULTI_FILE_CONTENT);
+        for (int chunkSize = 1; chunkSize <= 16; chunkSize++) {
+            MultiFileCodeResult result = (MultiFileCodeResult) parse(MULTI_FILE_CONTENT, chunkSize, CodeGenTypeEnum.MULTI_FILE);
+            assertEquals(expected.getHtmlCode(), result.getHtmlCode());
+            assertEquals(expected.getCssCode(), result.getCssCode());
+            assertEquals(expected.getJsCode(), result.getJsCode());
+        }
+    }
+
+    @Test
+    void parseHtmlCodeWithoutFence() {
+        String content = "<html><body>没有代码块</body></html>\n";
+        HtmlCodeResult result = (HtmlCodeResult) parse(content, 3, CodeGenTypeEnum.HTML);
+        assertEquals(new HtmlCodeParser().parseCode(content).getHtmlCode(), result.getHtmlCode());
+    }
+
+    @Test
+    void parseTruncatedHtmlCode() {
+        String content = "说明\n```html\n<html><body>被截断";
+        HtmlCodeResult result = (HtmlCodeResult) parse(content, 5, CodeGenTypeEnum.HTML);
+        assertEquals("<html><body>被截断", result.getHtmlCode());
+    }
+
+    private static Object parse(String content, int chunkSize, CodeGenTypeEnum codeGenType) {
+        ResponseAccumulator response = new ResponseAccumulator();
+        CodeResultCollector collector = new CodeResultCollector(codeGenType, response);
+        StreamingCodeParser parser = new StreamingCodeParser(collector);
+        for (int i = 0; i < content.length(); i += chunkSize) {
+            String chunk = content.substring(i, Math.min(content.length(), i + chunkSize));
+            response.append(chunk);
+            parser.append(chunk);
+        }
+        parser.complete();
+        return collector.getResult();
+    }
+}
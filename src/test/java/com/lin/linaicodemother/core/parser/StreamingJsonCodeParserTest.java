@@ -0,0 +1,115 @@
+package com.lin.linaicodemother.core.parser;
+
+import com.lin.linaicodemother.model.enums.CodeFileTypeEnum;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class StreamingJsonCodeParserTest {
+
+    private static final String CONTENT = """
+            ```json
+            {"description": "一个\\"简单\\"的页面 😀", "htmlCode": "<html>\\n<body>你好 😀</body>\\n</html>",
+             "cssCode": "h1 { color: blue; }", "jsCode": "console.log('ok');", "extra": {"htmlCode": "忽略"}}
+            ```
+            """;
+
+    /**
+     * 任意切分方式下，每个代码字段的内容完整、按顺序回调
+     */
+    @Test
+    void parseFieldsInChunks() {
+        for (int chunkSize = 1; chunkSize <= 16; chunkSize++) {
+            List<String> events = parse(CONTENT, chunkSize);
+            assertEquals(List.of(
+                    "text:一个\"简单\"的页面 😀",
+                    "HTML:<html>\n<body>你好 😀</body>\n</html>",
+                    "end:HTML",
+                    "CSS:h1 { color: blue; }",
+                    "end:CSS",
+                    "JS:console.log('ok');",
+                    "end:JS"
+            ), events);
+        }
+    }
+
+    /**
+     * 代码字段的内容在字符串闭合之前就逐段回调
+     */
+    @Test
+    void streamContentBeforeStringCloses() {
+        List<String> events = new ArrayList<>();
+        StreamingJsonCodeParser parser = new StreamingJsonCodeParser(recorder(events));
+        parser.append("{\"description\": \"页面\", \"htmlCode\": \"<html>\\n<bo");
+        assertEquals(List.of("text:页面", "HTML:<html>\n<bo"), events);
+        // 转义序列被切断时，等收到完整的转义再回调
+        parser.append("dy>\\u4f6");
+        assertEquals(List.of("text:页面", "HTML:<html>\n<body>"), events);
+        parser.append("0\\u597d</body></html>");
+        assertEquals(List.of("text:页面", "HTML:<html>\n<body>你好</body></html>"), events);
+        parser.append("\"}");
+        assertEquals(List.of("text:页面", "HTML:<html>\n<body>你好</body></html>", "end:HTML"), events);
+    }
+
+    /**
+     * 输出被截断时，未闭合代码字段已收到的内容在结束时作为完整代码块，未闭合的 description 丢弃
+     */
+    @Test
+    void parseTruncatedJson() {
+        List<String> events = new ArrayList<>();
+        StreamingJsonCodeParser parser = new StreamingJsonCodeParser(recorder(events));
+        parser.append("{\"htmlCode\": \"<html></html>\", \"cssCode\": \"h1 {");
+        assertEquals(List.of("HTML:<html></html>", "end:HTML", "CSS:h1 {"), events);
+        parser.complete();
+        assertEquals(List.of("HTML:<html></html>", "end:HTML", "CSS:h1 {", "end:CSS"), events);
+
+        events.clear();
+        parser = new StreamingJsonCodeParser(recorder(events));
+        parser.append("{\"description\": \"未完");
+        parser.complete();
+        assertEquals(List.of(), events);
+    }
+
+    private static List<String> parse(String content, int chunkSize) {
+        List<String> events = new ArrayList<>();
+        StreamingJsonCodeParser parser = new StreamingJsonCodeParser(recorder(events));
+        for (int i = 0; i < content.length(); i += chunkSize) {
+            parser.append(content.substring(i, Math.min(content.length(), i + chunkSize)));
+        }
+        parser.complete();
+        return events;
+    }
+
+    /**
+     * 记录事件，同一代码块的多段内容合并为一条
+     */
+    private static CodeBlockListener recorder(List<String> events) {
+        return new CodeBlockListener() {
+            @Override
+            public void onText(CharSequence text) {
+                events.add("text:" + text);
+            }
+
+            @Override
+            public void onBlockStart(CodeFileTypeEnum fileType, int offset) {
+                events.add(fileType.name() + ":");
+            }
+
+            @Override
+            public void onBlockContent(CodeFileTypeEnum fileType, CharSequence content) {
+                // 高位代理字符不会单独回调
+                assertFalse(Character.isHighSurrogate(content.charAt(content.length() - 1)));
+                events.set(events.size() - 1, events.getLast() + content);
+            }
+
+            @Override
+            public void onBlockEnd(CodeFileTypeEnum fileType, int offset) {
+                events.add("end:" + fileType.name());
+            }
+        };
+    }
+}
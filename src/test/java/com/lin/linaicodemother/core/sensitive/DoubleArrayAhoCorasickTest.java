@@ -0,0 +1,71 @@
+package com.lin.linaicodemother.core.sensitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DoubleArrayAhoCorasickTest {
+
+    @Test
+    void findOverlappingMatches() {
+        DoubleArrayAhoCorasick automaton = DoubleArrayAhoCorasick.build(List.of("he", "she", "his", "hers", "敏感词", "感词"));
+        List<String> matches = new ArrayList<>();
+        automaton.scan("ushers 和 敏感词", (wordId, start, end) -> matches.add(automaton.word(wordId) + "@" + start + "-" + end));
+        assertEquals(List.of("she@1-4", "he@2-4", "hers@2-6", "敏感词@9-12", "感词@10-12"), matches);
+    }
+
+    @Test
+    void ignoreCaseAndFullWidth() {
+        DoubleArrayAhoCorasick automaton = DoubleArrayAhoCorasick.build(List.of("Bad", "bad", "ＸＹ"));
+        // 忽略大小写后重复的词只保留一个
+        assertEquals(2, automaton.size());
+        assertTrue(automaton.matches("a ＢＡＤ word"));
+        assertTrue(automaton.matches("xy"));
+        assertFalse(automaton.matches("ba d"));
+    }
+
+    /**
+     * 与逐个 indexOf 的朴素匹配结果一致
+     */
+    @Test
+    void sameAsNaiveSearch() {
+        Random random = new Random(7);
+        String alphabet = "abc敏感词汇";
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            words.add(randomText(random, alphabet, 1 + random.nextInt(5)));
+        }
+        DoubleArrayAhoCorasick automaton = DoubleArrayAhoCorasick.build(words);
+        for (int round = 0; round < 50; round++) {
+            String text = randomText(random, alphabet + "xyz", 200);
+            List<String> expected = new ArrayList<>();
+            for (int end = 1; end <= text.length(); end++) {
+                for (int wordId = 0; wordId < automaton.size(); wordId++) {
+                    String word = automaton.word(wordId);
+                    if (end >= word.length() && text.startsWith(word, end - word.length())) {
+                        expected.add(word + "@" + end);
+                    }
+                }
+            }
+            List<String> actual = new ArrayList<>();
+            automaton.scan(text, (wordId, start, end) -> actual.add(automaton.word(wordId) + "@" + end));
+            expected.sort(null);
+            actual.sort(null);
+            assertEquals(expected, actual);
+        }
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,58 @@
+package com.lin.linaicodemother.core.sensitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingSensitiveMatcherTest {
+
+    private static final DoubleArrayAhoCorasick AUTOMATON = DoubleArrayAhoCorasick.build(List.of("he", "she", "hers", "敏感词", "感词汇"));
+
+    private static final String TEXT = "ushers 写了敏感词汇，又写了 SHE 和 h";
+
+    /**
+     * 任意分段方式的打码结果都与整段扫描一致，且暂存的字符不超过最长词长度
+     */
+    @Test
+    void maskAcrossChunks() {
+        String expected = maskWhole(TEXT);
+        for (int chunkSize = 1; chunkSize <= TEXT.length(); chunkSize++) {
+            StreamingSensitiveMatcher matcher = new StreamingSensitiveMatcher(AUTOMATON, true);
+            StringBuilder output = new StringBuilder();
+            for (int i = 0; i < TEXT.length(); i += chunkSize) {
+                output.append(matcher.append(TEXT.substring(i, Math.min(i + chunkSize, TEXT.length()))));
+                assertTrue(matcher.getPendingLength() <= AUTOMATON.maxWordLength());
+            }
+            output.append(matcher.complete());
+            assertEquals(expected, output.toString(), "chunkSize=" + chunkSize);
+        }
+    }
+
+    /**
+     * 标记模式原样放行，跨段的命中同样能被记录
+     */
+    @Test
+    void flagAcrossChunks() {
+        StreamingSensitiveMatcher matcher = new StreamingSensitiveMatcher(AUTOMATON, false);
+        assertEquals("写了敏", matcher.append("写了敏"));
+        assertEquals("感词汇", matcher.append("感词汇"));
+        assertEquals("", matcher.complete());
+        assertEquals(2, matcher.getMatchCount());
+        assertEquals(Set.of("敏感词", "感词汇"), matcher.getMatchedWords());
+    }
+
+    private static String maskWhole(String text) {
+        StringBuilder masked = new StringBuilder(text);
+        AUTOMATON.scan(text, (wordId, start, end) -> {
+            for (int i = start; i < end; i++) {
+                masked.setCharAt(i, '*');
+            }
+            return true;
+        });
+        return masked.toString();
+    }
+}
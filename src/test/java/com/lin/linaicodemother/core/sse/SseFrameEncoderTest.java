@@ -0,0 +1,31 @@
+package com.lin.linaicodemother.core.sse;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SseFrameEncoderTest {
+
+    private final SseFrameEncoder encoder = new SseFrameEncoder();
+
+    @Test
+    void encodePlainText() {
+        assertEquals("{\"d\":\"  <div> 你好 </div>\"}", encoder.encode("  <div> 你好 </div>"));
+        assertEquals("{\"d\":\"\"}", encoder.encode(""));
+    }
+
+    @Test
+    void encodeEscapedCharacters() {
+        assertEquals("{\"d\":\"a\\\"b\\\\c\\n\\td\\r\"}", encoder.encode("a\"b\\c\n\td\r"));
+        assertEquals("{\"d\":\"\\u0001x\\u2028\"}", encoder.encode("\u0001x\u2028"));
+    }
+
+    /**
+     * 缓冲区复用后不残留上一帧的内容
+     */
+    @Test
+    void reuseBuffer() {
+        encoder.encode("一段很长的内容".repeat(100));
+        assertEquals("{\"d\":\"ok\"}", encoder.encode("ok"));
+    }
+}
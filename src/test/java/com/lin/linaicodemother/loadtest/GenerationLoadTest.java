@@ -0,0 +1,280 @@
+package com.lin.linaicodemother.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lin.linaicodemother.exception.BusinessException;
+import com.lin.linaicodemother.model.entity.App;
+import com.lin.linaicodemother.service.AppService;
+import com.lin.linaicodemother.service.UserService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 代码生成压测（离线）
+ * 使用 simulate 环境中的模拟大模型启动应用，N 个并发客户端同时调用 /api/app/chat/gen/code，
+ * 统计首字节时间（TTFB）p50/p99、每秒推送帧数、堆内存和线程数，以及 Tomcat、Hikari、后处理线程池的饱和情况。
+ * 需要本地 MySQL、Redis；默认不执行，运行方式：
+ * mvn test -Dtest=GenerationLoadTest -Dloadtest=true -Dloadtest.concurrency=10,50,100,200 -Dai.simulate.tokens-per-second=50
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        // 开启 Tomcat 线程池指标（tomcat.threads.busy）
+        properties = "server.tomcat.mbeanregistry.enabled=true")
+@ActiveProfiles({"local", "simulate"})
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class GenerationLoadTest {
+
+    private static final String USER_ACCOUNT = "loadtest";
+
+    private static final String USER_PASSWORD = "loadtest123";
+
+    private static final String MESSAGE = "做一个摄影作品集网站，包含作品展示和留言表单";
+
+    @LocalServerPort
+    private int port;
+
+    @Resource
+    private UserService userService;
+
+    @Resource
+    private AppService appService;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    /**
+     * 单个客户端的结果
+     *
+     * @param ttfbNanos     首字节时间
+     * @param durationNanos 整个生成的耗时
+     * @param frames        收到的内容帧数
+     * @param completed     是否收到 done 事件
+     */
+    private record ClientResult(long ttfbNanos, long durationNanos, int frames, boolean completed) {
+    }
+
+    /**
+     * 压测期间采样到的最大值
+     */
+    private static class PeakStats {
+        volatile long heapUsed;
+        volatile int threads;
+        volatile double tomcatBusyThreads;
+        volatile double hikariActive;
+        volatile double hikariPending;
+        volatile double postGenerationQueued;
+    }
+
+    @Test
+    void chatToGenCode() throws Exception {
+        String codeGenType = System.getProperty("loadtest.codeGenType", "html");
+        int[] levels = Arrays.stream(System.getProperty("loadtest.concurrency", "10,50,100").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        LoginSession session = login();
+        List<String> report = new ArrayList<>();
+        report.add(String.format("%8s %8s %10s %10s %10s %10s %10s %9s %9s %7s %8s %8s %8s",
+                "clients", "ok", "ttfb_p50", "ttfb_p99", "total_p50", "total_p99", "frames/s",
+                "heap_mb", "threads", "tomcat", "hikari", "pending", "post_q"));
+        for (int concurrency : levels) {
+            report.add(runLevel(session, codeGenType, concurrency));
+        }
+        log.info("压测结果（codeGenType={}，时间单位 ms）:\n{}", codeGenType, String.join("\n", report));
+    }
+
+    /**
+     * 以指定并发数执行一轮压测
+     */
+    private String runLevel(LoginSession session, String codeGenType, int concurrency) throws Exception {
+        // 每个客户端使用独立的应用，避免同一应用的生成任务互相复用
+        List<Long> appIds = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            App app = App.builder()
+                    .appName("压测应用-" + i)
+                    .initPrompt(MESSAGE)
+                    .codeGenType(codeGenType)
+                    .userId(session.userId())
+                    .build();
+            appService.save(app);
+            appIds.add(app.getId());
+        }
+        PeakStats peak = new PeakStats();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> sample(peak), 0, 100, TimeUnit.MILLISECONDS);
+        List<ClientResult> results = new ArrayList<>(concurrency);
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            CountDownLatch ready = new CountDownLatch(1);
+            List<Future<ClientResult>> futures = new ArrayList<>(concurrency);
+            for (Long appId : appIds) {
+                futures.add(clients.submit(() -> {
+                    ready.await();
+                    return generate(session, appId);
+                }));
+            }
+            ready.countDown();
+            for (Future<ClientResult> future : futures) {
+                results.add(future.get());
+            }
+        } finally {
+            sampler.shutdownNow();
+            appIds.forEach(appService::removeById);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        List<ClientResult> completed = results.stream().filter(ClientResult::completed).toList();
+        Assertions.assertFalse(completed.isEmpty(), "没有客户端完成生成");
+        long[] ttfb = completed.stream().mapToLong(ClientResult::ttfbNanos).sorted().toArray();
+        long[] durations = completed.stream().mapToLong(ClientResult::durationNanos).sorted().toArray();
+        long frames = results.stream().mapToLong(ClientResult::frames).sum();
+        return String.format("%8d %8d %10.1f %10.1f %10.1f %10.1f %10.1f %9d %9d %7.0f %8.0f %8.0f %8.0f",
+                concurrency, completed.size(),
+                millis(percentile(ttfb, 0.50)), millis(percentile(ttfb, 0.99)),
+                millis(percentile(durations, 0.50)), millis(percentile(durations, 0.99)),
+                frames * 1e9 / elapsedNanos,
+                peak.heapUsed / (1024 * 1024), peak.threads,
+                peak.tomcatBusyThreads, peak.hikariActive, peak.hikariPending, peak.postGenerationQueued);
+    }
+
+    /**
+     * 一个 SSE 客户端：发起生成请求并读完整个事件流
+     */
+    private ClientResult generate(LoginSession session, Long appId) {
+        String url = String.format("http://localhost:%d/api/app/chat/gen/code?appId=%d&message=%s",
+                port, appId, URLEncoder.encode(MESSAGE, StandardCharsets.UTF_8));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Cookie", session.cookie())
+                .header("Accept", "text/event-stream")
+                .timeout(Duration.ofMinutes(10))
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        long ttfb = -1;
+        int frames = 0;
+        boolean completed = false;
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (ttfb < 0) {
+                        ttfb = System.nanoTime() - start;
+                    }
+                    if (line.startsWith("event:done")) {
+                        completed = true;
+                    } else if (line.startsWith("data:{")) {
+                        frames++;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.warn("压测客户端异常，appId: {}, error: {}", appId, e.getMessage());
+        }
+        return new ClientResult(ttfb, System.nanoTime() - start, frames, completed);
+    }
+
+    /**
+     * 采样 JVM 与连接池、线程池指标，记录最大值
+     */
+    private void sample(PeakStats peak) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        peak.heapUsed = Math.max(peak.heapUsed, memory.getHeapMemoryUsage().getUsed());
+        peak.threads = Math.max(peak.threads, threads.getThreadCount());
+        peak.tomcatBusyThreads = Math.max(peak.tomcatBusyThreads, gauge("tomcat.threads.busy"));
+        peak.hikariActive = Math.max(peak.hikariActive, gauge("hikaricp.connections.active"));
+        peak.hikariPending = Math.max(peak.hikariPending, gauge("hikaricp.connections.pending"));
+        peak.postGenerationQueued = Math.max(peak.postGenerationQueued, gauge("executor.queued", "post_generation"));
+    }
+
+    private double gauge(String name) {
+        return gauge(name, null);
+    }
+
+    private double gauge(String name, String executorName) {
+        Gauge gauge = executorName == null
+                ? meterRegistry.find(name).gauge()
+                : meterRegistry.find(name).tag("name", executorName).gauge();
+        return gauge != null ? gauge.value() : 0;
+    }
+
+    /**
+     * 登录后的会话
+     *
+     * @param userId 用户 id
+     * @param cookie 会话 Cookie
+     */
+    private record LoginSession(long userId, String cookie) {
+    }
+
+    /**
+     * 注册（已存在则跳过）并通过接口登录，获取会话 Cookie
+     */
+    private LoginSession login() throws Exception {
+        try {
+            userService.userRegister(USER_ACCOUNT, USER_PASSWORD, USER_PASSWORD);
+        } catch (BusinessException e) {
+            log.info("压测用户已存在: {}", e.getMessage());
+        }
+        String body = objectMapper.writeValueAsString(Map.of("userAccount", USER_ACCOUNT, "userPassword", USER_PASSWORD));
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/user/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        String cookie = response.headers().firstValue("Set-Cookie")
+                .map(value -> value.split(";", 2)[0])
+                .orElseThrow(() -> new IllegalStateException("登录失败: " + response.body()));
+        JsonNode data = objectMapper.readTree(response.body()).path("data");
+        return new LoginSession(data.path("id").asLong(), cookie);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.clamp(index, 0, sorted.length - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,122 @@
+package com.lin.linaicodemother.manager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lin.linaicodemother.model.entity.ChatHistory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatHistorySpillLogTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private final Path dir;
+
+    private final Path spillFile;
+
+    ChatHistorySpillLogTest() throws IOException {
+        dir = Files.createTempDirectory("chat-history-spill-test");
+        spillFile = dir.resolve("spill.jsonl");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> stream = Files.walk(dir)) {
+            for (Path path : stream.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    void deleteSegmentsOnceCommitted() throws IOException {
+        // 每条记录都超过分段大小，每次追加都会切换到新段
+        ChatHistorySpillLog spillLog = new ChatHistorySpillLog(spillFile, 1, objectMapper);
+        spillLog.open();
+        ChatHistorySpillLog.Segment first = spillLog.append(chatHistory(1L));
+        ChatHistorySpillLog.Segment second = spillLog.append(chatHistory(2L));
+        ChatHistorySpillLog.Segment third = spillLog.append(chatHistory(3L));
+        assertEquals(3, segmentFiles().size());
+
+        // 队列一直不为空，已写入的段也会被删除
+        spillLog.commit(List.of(first, second));
+        assertEquals(List.of("spill.jsonl.2"), segmentFiles());
+        spillLog.commit(List.of(third));
+        spillLog.close();
+        assertTrue(segmentFiles().isEmpty());
+    }
+
+    @Test
+    void replayOnlyMissingRecords() throws IOException {
+        ChatHistorySpillLog crashed = new ChatHistorySpillLog(spillFile, 1024, objectMapper);
+        crashed.open();
+        for (long id = 1; id <= 5; id++) {
+            crashed.append(chatHistory(id));
+        }
+        crashed.commit(List.of());
+        // 崩溃时最后一条记录只写了一半
+        Files.writeString(dir.resolve(segmentFiles().getLast()), objectMapper.writeValueAsString(chatHistory(6L)) + "\n{\"id\":7,\"mess",
+                StandardOpenOption.APPEND);
+
+        ChatHistorySpillLog spillLog = new ChatHistorySpillLog(spillFile, 1024, objectMapper);
+        spillLog.open();
+        assertTrue(spillLog.hasRecovering());
+        Set<Long> database = new HashSet<>(Set.of(1L, 3L));
+        List<Long> inserted = new ArrayList<>();
+        int replayed = spillLog.replay(2, ids -> ids.stream().filter(database::contains).collect(Collectors.toSet()),
+                batch -> batch.forEach(chatHistory -> {
+                    inserted.add(chatHistory.getId());
+                    database.add(chatHistory.getId());
+                }));
+        assertEquals(4, replayed);
+        assertEquals(Set.of(2L, 4L, 5L, 6L), new HashSet<>(inserted));
+        assertFalse(spillLog.hasRecovering());
+        // 只剩新打开的当前段
+        assertEquals(1, segmentFiles().size());
+    }
+
+    @Test
+    void keepSegmentsWhenReplayFails() throws IOException {
+        ChatHistorySpillLog crashed = new ChatHistorySpillLog(spillFile, 1024, objectMapper);
+        crashed.open();
+        crashed.append(chatHistory(1L));
+
+        ChatHistorySpillLog spillLog = new ChatHistorySpillLog(spillFile, 1024, objectMapper);
+        spillLog.open();
+        assertThrows(IllegalStateException.class, () -> spillLog.replay(100, ids -> Set.of(), batch -> {
+            throw new IllegalStateException("数据库不可用");
+        }));
+        assertTrue(spillLog.hasRecovering());
+        // 重试成功后删除
+        List<Long> inserted = new ArrayList<>();
+        spillLog.replay(100, ids -> Set.of(), batch -> batch.forEach(chatHistory -> inserted.add(chatHistory.getId())));
+        assertEquals(List.of(1L), inserted);
+        assertFalse(spillLog.hasRecovering());
+    }
+
+    private List<String> segmentFiles() throws IOException {
+        try (Stream<Path> stream = Files.list(dir)) {
+            return stream.map(path -> path.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    private static ChatHistory chatHistory(Long id) {
+        return ChatHistory.builder().id(id).appId(1L).userId(1L).message("消息" + id).messageType("user").build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.lin.linaicodemother.manager;
+
+import com.lin.linaicodemother.manager.LoginTokenCodec.LoginToken;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LoginTokenCodecTest {
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    private static final long NOW = 1_771_000_000L;
+
+    private final LoginTokenCodec codec = new LoginTokenCodec(SECRET);
+
+    @Test
+    void encodeAndDecode() {
+        LoginToken token = new LoginToken(1_893_245_813_474_873_345L, "admin", NOW, NOW + 3600, -42L);
+        String encoded = codec.encode(token);
+        assertEquals(56, encoded.length());
+        assertEquals(token, codec.decode(encoded, NOW));
+        // 未知角色解析为 null
+        LoginToken unknownRole = new LoginToken(1L, "guest", NOW, NOW + 3600, 7L);
+        assertNull(codec.decode(codec.encode(unknownRole), NOW).userRole());
+    }
+
+    @Test
+    void rejectInvalidToken() {
+        String encoded = codec.encode(new LoginToken(1L, "user", NOW, NOW + 3600, 7L));
+        // 过期
+        assertNull(codec.decode(encoded, NOW + 3600));
+        // 篡改任意一个字符
+        for (int i = 0; i < encoded.length(); i++) {
+            char replaced = encoded.charAt(i) == 'A' ? 'B' : 'A';
+            String tampered = encoded.substring(0, i) + replaced + encoded.substring(i + 1);
+            assertNull(codec.decode(tampered, NOW), "index " + i);
+        }
+        // 其他密钥签发
+        LoginTokenCodec other = new LoginTokenCodec("fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.UTF_8));
+        assertNull(other.decode(encoded, NOW));
+        assertNull(codec.decode(null, NOW));
+        assertNull(codec.decode("not-a-token", NOW));
+        assertThrows(IllegalArgumentException.class, () -> new LoginTokenCodec(new byte[16]));
+    }
+}
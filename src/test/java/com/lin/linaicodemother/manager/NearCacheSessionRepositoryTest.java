@@ -0,0 +1,184 @@
+package com.lin.linaicodemother.manager;
+
+import com.lin.linaicodemother.config.SessionNearCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.session.MapSession;
+import org.springframework.session.data.redis.RedisSessionMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 与 Spring Session 默认的 RedisSessionRepository 互相读取会话（Redis 用内存中的哈希、字符串模拟）：
+ * 默认存储的会话哈希直接按其格式写入（字段值 JDK 序列化），读取时使用默认存储的 RedisSessionMapper
+ */
+class NearCacheSessionRepositoryTest {
+
+    private static final String KEY_PREFIX = "spring:session:sessions:";
+
+    /**
+     * 模拟的 Redis 哈希：key -> 字段 -> 值
+     */
+    private final Map<String, Map<String, byte[]>> hashes = new HashMap<>();
+
+    /**
+     * 模拟的 Redis 字符串
+     */
+    private final Map<String, byte[]> strings = new HashMap<>();
+
+    /**
+     * 默认会话存储的 RedisTemplate 使用的值序列化方式
+     */
+    private final JdkSerializationRedisSerializer serializer = new JdkSerializationRedisSerializer();
+
+    private final NearCacheSessionRepository repository = new NearCacheSessionRepository(
+            fakeStringRedisTemplate(), new SessionNearCacheProperties(), Duration.ofMinutes(30), new SimpleMeterRegistry());
+
+    private final RedisSessionMapper stockMapper = new RedisSessionMapper();
+
+    @Test
+    void stockRepositoryReadsNearCacheSession() {
+        NearCacheSessionRepository.NearCacheSession session = repository.createSession();
+        session.setAttribute("user", "lin");
+        session.setAttribute("count", 3);
+        repository.save(session);
+        String id = session.getId();
+        // 会话哈希中只有默认格式的字段，版本号单独存放
+        assertEquals(Set.of("creationTime", "lastAccessedTime", "maxInactiveInterval", "sessionAttr:user", "sessionAttr:count"),
+                hashes.get(KEY_PREFIX + id).keySet());
+        assertEquals("1", new String(strings.get(KEY_PREFIX + id + ":v"), StandardCharsets.UTF_8));
+
+        MapSession stockSession = readStockSession(id);
+        assertEquals("lin", stockSession.getAttribute("user"));
+        assertEquals(3, (Integer) stockSession.getAttribute("count"));
+        assertEquals(Duration.ofMinutes(30), stockSession.getMaxInactiveInterval());
+        assertEquals(session.getCreationTime().toEpochMilli(), stockSession.getCreationTime().toEpochMilli());
+
+        // 只写入变化的字段
+        NearCacheSessionRepository.NearCacheSession found = repository.findById(id);
+        found.removeAttribute("count");
+        found.setAttribute("user", "lin2");
+        repository.save(found);
+        stockSession = readStockSession(id);
+        assertEquals("lin2", stockSession.getAttribute("user"));
+        assertNull(stockSession.getAttribute("count"));
+        assertEquals("2", new String(strings.get(KEY_PREFIX + id + ":v"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void nearCacheReadsStockSession() {
+        // 默认存储写入的会话：没有版本号
+        String id = "stock-session";
+        Instant creationTime = Instant.ofEpochMilli(System.currentTimeMillis() - 60_000);
+        Instant lastAccessedTime = Instant.ofEpochMilli(System.currentTimeMillis() - 1_000);
+        Map<String, byte[]> hash = new HashMap<>();
+        hash.put("creationTime", serializer.serialize(creationTime.toEpochMilli()));
+        hash.put("lastAccessedTime", serializer.serialize(lastAccessedTime.toEpochMilli()));
+        hash.put("maxInactiveInterval", serializer.serialize(1800));
+        hash.put("sessionAttr:user", serializer.serialize("lin"));
+        hashes.put(KEY_PREFIX + id, hash);
+
+        NearCacheSessionRepository.NearCacheSession session = repository.findById(id);
+        assertNotNull(session);
+        assertEquals("lin", session.getAttribute("user"));
+        assertEquals(creationTime, session.getCreationTime());
+        assertEquals(lastAccessedTime, session.getLastAccessedTime());
+        assertEquals(Duration.ofMinutes(30), session.getMaxInactiveInterval());
+        session.setAttribute("count", 1);
+        repository.save(session);
+
+        MapSession reloaded = readStockSession(id);
+        assertEquals("lin", reloaded.getAttribute("user"));
+        assertEquals(1, (Integer) reloaded.getAttribute("count"));
+        assertEquals("1", new String(strings.get(KEY_PREFIX + id + ":v"), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 按默认存储的方式读取会话：字段值 JDK 反序列化后交给 RedisSessionMapper
+     */
+    private MapSession readStockSession(String id) {
+        Map<String, byte[]> hash = hashes.get(KEY_PREFIX + id);
+        assertNotNull(hash);
+        Map<String, Object> entries = new HashMap<>();
+        hash.forEach((field, value) -> entries.put(field, serializer.deserialize(value)));
+        return stockMapper.apply(id, entries);
+    }
+
+    /**
+     * 本地缓存会话存储使用的 StringRedisTemplate：按 SAVE_SCRIPT 的语义模拟写入
+     */
+    private StringRedisTemplate fakeStringRedisTemplate() {
+        RedisHashCommands hashCommands = mock(RedisHashCommands.class);
+        when(hashCommands.hGetAll(any())).thenAnswer(invocation -> {
+            Map<byte[], byte[]> entries = new HashMap<>();
+            hashes.getOrDefault(string(invocation.getArgument(0)), Map.of())
+                    .forEach((field, value) -> entries.put(field.getBytes(StandardCharsets.UTF_8), value));
+            return entries;
+        });
+        RedisStringCommands stringCommands = mock(RedisStringCommands.class);
+        when(stringCommands.get(any())).thenAnswer(invocation -> strings.get(string(invocation.getArgument(0))));
+        RedisScriptingCommands scriptingCommands = mock(RedisScriptingCommands.class,
+                invocation -> "eval".equals(invocation.getMethod().getName()) ? eval(invocation.getArguments()) : null);
+        RedisConnection connection = mock(RedisConnection.class);
+        when(connection.hashCommands()).thenReturn(hashCommands);
+        when(connection.stringCommands()).thenReturn(stringCommands);
+        when(connection.scriptingCommands()).thenReturn(scriptingCommands);
+
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        when(stringRedisTemplate.execute(any(RedisCallback.class))).thenAnswer(invocation ->
+                invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection));
+        return stringRedisTemplate;
+    }
+
+    /**
+     * KEYS[1] 会话 key，KEYS[2] 版本号 key，ARGV[1] 过期时间，之后是字段、值交替（值为空表示删除）
+     */
+    private Long eval(Object[] arguments) {
+        List<byte[]> keysAndArgs = new ArrayList<>();
+        for (int i = 3; i < arguments.length; i++) {
+            if (arguments[i] instanceof byte[][] array) {
+                keysAndArgs.addAll(List.of(array));
+            } else {
+                keysAndArgs.add((byte[]) arguments[i]);
+            }
+        }
+        Map<String, byte[]> hash = hashes.computeIfAbsent(string(keysAndArgs.get(0)), key -> new HashMap<>());
+        for (int i = 3; i + 1 < keysAndArgs.size(); i += 2) {
+            byte[] value = keysAndArgs.get(i + 1);
+            if (value.length == 0) {
+                hash.remove(string(keysAndArgs.get(i)));
+            } else {
+                hash.put(string(keysAndArgs.get(i)), value);
+            }
+        }
+        String versionKey = string(keysAndArgs.get(1));
+        long version = strings.containsKey(versionKey) ? Long.parseLong(string(strings.get(versionKey))) + 1 : 1;
+        strings.put(versionKey, String.valueOf(version).getBytes(StandardCharsets.UTF_8));
+        return version;
+    }
+
+    private static String string(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
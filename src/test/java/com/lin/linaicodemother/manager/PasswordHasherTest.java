@@ -0,0 +1,78 @@
+package com.lin.linaicodemother.manager;
+
+import com.lin.linaicodemother.config.PasswordHashProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTest {
+
+    private final PasswordHasher hasher = newHasher(1000);
+
+    @AfterEach
+    void tearDown() {
+        hasher.shutdown();
+    }
+
+    @Test
+    void hashAndMatch() {
+        String encoded = hasher.hash("12345678");
+        assertTrue(encoded.startsWith("pbkdf2_sha256$1000$"));
+        // 每次使用不同的盐
+        assertNotEquals(encoded, hasher.hash("12345678"));
+        assertTrue(hasher.matches("12345678", encoded));
+        assertFalse(hasher.matches("12345679", encoded));
+        assertFalse(hasher.matches("12345678", null));
+        assertFalse(hasher.needsRehash(encoded));
+    }
+
+    @Test
+    void migrateLegacyHash() {
+        String legacy = PasswordHasher.legacyHash("12345678");
+        assertEquals(32, legacy.length());
+        assertTrue(hasher.matches("12345678", legacy));
+        assertFalse(hasher.matches("12345679", legacy));
+        assertTrue(hasher.needsRehash(legacy));
+        // 迭代次数调高后旧的哈希需要重新计算
+        PasswordHasher stronger = newHasher(2000);
+        try {
+            assertTrue(stronger.needsRehash(hasher.hash("12345678")));
+            assertTrue(stronger.matches("12345678", hasher.hash("12345678")));
+        } finally {
+            stronger.shutdown();
+        }
+    }
+
+    /**
+     * 自动测定的迭代次数因节点而异，不低于下限的哈希不重新计算
+     */
+    @Test
+    void tunedIterationsOnlyRehashBelowMinimum() {
+        PasswordHashProperties properties = new PasswordHashProperties();
+        properties.setTargetLatency(Duration.ofMillis(1));
+        properties.setMinIterations(1000);
+        PasswordHasher tuned = new PasswordHasher(properties, new SimpleMeterRegistry());
+        PasswordHasher weaker = newHasher(500);
+        try {
+            assertTrue(tuned.getIterations() >= 1000);
+            assertFalse(tuned.needsRehash(hasher.hash("12345678")));
+            assertTrue(tuned.needsRehash(weaker.hash("12345678")));
+        } finally {
+            tuned.shutdown();
+            weaker.shutdown();
+        }
+    }
+
+    private static PasswordHasher newHasher(int iterations) {
+        PasswordHashProperties properties = new PasswordHashProperties();
+        properties.setIterations(iterations);
+        return new PasswordHasher(properties, new SimpleMeterRegistry());
+    }
+}